@@ -18,6 +18,29 @@ public class TicTacToe {
 	 */
 	public int aiTurn;
 
+	/**
+	 * The results of searchValue, shared by every game and thread. It
+	 * is TicTacToePlus's table, since the search is TicTacToePlus's.
+	 */
+	public static final TicTacToeTranspositionTable transpositionTable = TicTacToePlus.transpositionTable;
+
+	/**
+	 * The game searchValue searches with, under the standard rules,
+	 * which are the rules of this game
+	 */
+	private final TicTacToePlus solver = new TicTacToePlus(0);
+
+	/**
+	 * The number of positions searchValue has visited
+	 */
+	public long nodesVisited;
+
+	/**
+	 * When set, the ai looks its moves up in the tablebase (made for
+	 * normal 3x3 Tic Tac Toe) instead of searching
+	 */
+	public TicTacToeTablebase tablebase;
+
 	public TicTacToe(int aiTurn) {
 		this.aiTurn = aiTurn;
 		xTurn = true;
@@ -211,7 +234,9 @@ public class TicTacToe {
 			for (int a = 0; a < board[i].length; a++)
 				boardCopy[i][a] = board[i][a];
 
-		int[] aiAnalysis = alternateFindBestMove(boardCopy, xTurn);
+		int[] aiAnalysis = tablebase != null && tablebase.covers(board, TicTacToeRules.standard) ? tablebase.bestMove(boardCopy):null;
+		if (aiAnalysis == null)
+			aiAnalysis = alternateFindBestMove(boardCopy, xTurn);
 		board[aiAnalysis[1]][aiAnalysis[2]] = xTurn ? 'X':'O';
 	}
 
@@ -244,9 +269,9 @@ public class TicTacToe {
 	}
 
 	/**
-	 * This (recursive) function finds the best move, returning
+	 * This function finds the best move, returning
 	 * a result array with the analysis, the x, and the y coords
-	 * for the best move
+	 * for the best move. The moves are valued with searchValue.
 	 * 
 	 * @param  board The current state of the board
 	 * @param  xTurn Whether or not it is the X's turn currently
@@ -267,9 +292,9 @@ public class TicTacToe {
 		int bestX = possibleMoves[0][0], bestY = possibleMoves[0][1], result = xTurn ? -1:1;
 
 		for (int i = 0; i < possibleMoves.length; i++) {
-			// Place the move, then run the function recrusively, then undo the move
+			// Place the move, then search the resulting position, then undo the move
 			board[possibleMoves[i][0]][possibleMoves[i][1]] = xTurn ? 'X':'O';
-			int tempResult = findBestMove(board, !xTurn)[0];
+			int tempResult = searchValue(board, !xTurn);
 			board[possibleMoves[i][0]][possibleMoves[i][1]] = ' ';
 
 			// Check if the result is favorable for the player
@@ -290,7 +315,8 @@ public class TicTacToe {
 
 	/**
 	 * This alternate implementation of DFS doesn't require a possibleMoves function.
-	 * This makes it faster, and probably more intuitive
+	 * This makes it faster, and probably more intuitive. The moves are valued
+	 * with searchValue.
 	 * @param  board The current state of the board
 	 * @param  xTurn The current turn
 	 * @return       A result
@@ -311,9 +337,9 @@ public class TicTacToe {
 			for (int a = 0; a < board[i].length; a++) {
 				if (board[i][a] != ' ')
 					continue;
-				// Place the move, then run the function recrusively, then undo the move
+				// Place the move, then search the resulting position, then undo the move
 				board[i][a] = xTurn ? 'X':'O';
-				int tempResult = alternateFindBestMove(board, !xTurn)[0];
+				int tempResult = searchValue(board, !xTurn);
 				board[i][a] = ' ';
 
 				// Check if the result is favorable for the player
@@ -332,6 +358,24 @@ public class TicTacToe {
 		return new int[] {result, bestX, bestY};
 	}
 
+	/**
+	 * This (recursive) function returns the value of the position
+	 * with the best play from both players. The search is solver's,
+	 * so the results are stored in (and looked up from) the same
+	 * transpositionTable, under the same keys, as TicTacToePlus's
+	 * searches of normal 3x3 Tic Tac Toe.
+	 * 
+	 * @param  board The current state of the board
+	 * @param  xTurn Whether or not it is the X's turn currently
+	 * @return       The value of the position, -1, 0 or 1
+	 */
+	public int searchValue(char[][] board, boolean xTurn) {
+		long visited = solver.nodesVisited;
+		int result = solver.searchValue(board, xTurn);
+		nodesVisited += solver.nodesVisited - visited;
+		return result;
+	}
+
 	/**
 	 * This functions returns true if a win is possible
 	 * in the current position, false otherwise. Note that this function
@@ -0,0 +1,326 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scores a stream of positions, one per line, with an engine, writing
+ * one line of results per position in the same order as the input.
+ * A position is written like the server's BOARD answer: the rows
+ * separated by /, with . for empty cells, optionally followed by the
+ * side to move (by default X if both sides have as many stones, O
+ * otherwise), eg:
+ *
+ *     X../.O./..X
+ *     X../.O./... O
+ *
+ * Each result line is the value of the position (1 if X wins, -1 if
+ * O wins, 0 for a draw, or X's expected result for mcts) and the best
+ * move's row and column (-1 -1 if the game is over), followed with
+ * --all by the value after every move, row by row, with . for full
+ * cells. Lines that can't be read are answered with ERROR.
+ *
+ * Reading, evaluating and writing are pipelined: a reader thread parses
+ * batches of lines and hands each one to the worker pool, queueing its
+ * future in input order, and a writer thread writes the futures in that
+ * order as they complete. The queue is bounded, so at most a fixed
+ * number of batches are in memory however long the input is.
+ *
+ *     java TicTacToeAnalyzer [--engine alphaBeta|alternateFindBestMove|mcts:trials|tablebase:file]
+ *         [--threads n] [--all] [--anti] [--winLength k] [file]
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeAnalyzer {
+
+	public static final int batchSize = 4096;
+
+	/**
+	 * Evaluates positions for one thread
+	 */
+	public interface Evaluator {
+		/**
+		 * Returns {value, row, column} for the position
+		 */
+		double[] analyze(char[][] board, boolean xTurn);
+	}
+
+	private final ThreadLocal<Evaluator> evaluators;
+	private final TicTacToeRules rules;
+	private final boolean allMoves;
+	private final int threads, batchesInFlight;
+
+	/**
+	 * @param engine   The engine spec, see the class comment
+	 * @param threads  The number of evaluation threads
+	 * @param allMoves Whether to also write the value after every move,
+	 *                 which needs an engine with exact values
+	 * @param rules    The rules the positions are played by
+	 */
+	public TicTacToeAnalyzer(String engine, int threads, boolean allMoves, TicTacToeRules rules) {
+		if (allMoves && engine.startsWith("mcts"))
+			throw new IllegalArgumentException("--all needs an engine with exact values");
+		this.evaluators = ThreadLocal.withInitial(evaluator(engine, rules));
+		this.rules = rules;
+		this.allMoves = allMoves;
+		this.threads = threads;
+		batchesInFlight = 4 * threads;
+	}
+
+	public static void main(String... pumpkins) throws Exception {
+		String engine = "alphaBeta", file = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean allMoves = false, anti = false;
+		int winLength = 3;
+		for (int i = 0; i < pumpkins.length; i++)
+			switch (pumpkins[i]) {
+				case "--engine":
+					engine = pumpkins[++i];
+					break;
+				case "--threads":
+					threads = Integer.parseInt(pumpkins[++i]);
+					break;
+				case "--all":
+					allMoves = true;
+					break;
+				case "--anti":
+					anti = true;
+					break;
+				case "--winLength":
+					winLength = Integer.parseInt(pumpkins[++i]);
+					break;
+				default:
+					file = pumpkins[i];
+			}
+
+		TicTacToeAnalyzer analyzer = new TicTacToeAnalyzer(engine, threads, allMoves, TicTacToeRules.of(winLength, anti));
+		long start = System.nanoTime();
+		long lines;
+		try (InputStream input = file == null ? System.in:new FileInputStream(file)) {
+			Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+			lines = analyzer.analyze(input, output);
+			output.flush();
+		}
+		System.err.printf("%d positions in %.2fs, %.0f positions/s%n", lines, (System.nanoTime() - start) / 1e9, lines / ((System.nanoTime() - start) / 1e9));
+	}
+
+	private static java.util.function.Supplier<Evaluator> evaluator(String spec, TicTacToeRules rules) {
+		String[] parts = spec.split(":");
+		switch (parts[0]) {
+			case "alphaBeta":
+				return () -> {
+					TicTacToePlus TTT = new TicTacToePlus(0, 3, 3, rules);
+					return (board, xTurn) -> toDoubles(TTT.alphaBetaFindBestMove(board, xTurn));
+				};
+			case "alternateFindBestMove":
+				return () -> {
+					TicTacToePlus TTT = new TicTacToePlus(0, 3, 3, rules);
+					return (board, xTurn) -> toDoubles(TTT.alternateFindBestMove(board, xTurn));
+				};
+			case "mcts":
+				int trials = parts.length > 1 ? Integer.parseInt(parts[1]):TicTacToePlus.monteCarloTrials;
+				// The root only has children to pick from once a trial has run
+				if (trials < 1)
+					throw new IllegalArgumentException("mcts needs at least 1 trial");
+				return () -> (board, xTurn) -> {
+					TicTacToeMCTSNode root = new TicTacToeMCTSNode(board, xTurn, null, null, TicTacToePlus.expansionConstant, rules);
+					if (root.result != 0 || root.emptyCells == 0)
+						return new double[] {root.result, -1, -1};
+					for (int i = 0; i < trials; i++)
+						root.chooseChild();
+					TicTacToeMCTSNode best = root.children[0];
+					for (int i = 1; i < root.children.length; i++)
+						if (root.children[i].stats.totalTrials > best.stats.totalTrials)
+							best = root.children[i];
+					// The child's misses are the wins of the player choosing it
+					double value = (double)(best.stats.misses - best.stats.hits) / Math.max(best.stats.totalTrials, 1);
+					return new double[] {xTurn ? value:-value, best.lastMove[0], best.lastMove[1]};
+				};
+			case "tablebase":
+				TicTacToeTablebase tablebase;
+				try {
+					tablebase = TicTacToeTablebase.open(parts[1]);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return () -> (board, xTurn) -> {
+					int[] analysis = tablebase.covers(board, rules) ? tablebase.bestMove(board):null;
+					if (analysis == null)
+						throw new IllegalArgumentException("not in the tablebase");
+					return toDoubles(analysis);
+				};
+			default:
+				throw new IllegalArgumentException("Unknown engine " + spec);
+		}
+	}
+
+	private static double[] toDoubles(int[] analysis) {
+		return new double[] {analysis[0], analysis[1], analysis[2]};
+	}
+
+	/**
+	 * Analyzes every line of the input, writing the results in order
+	 *
+	 * @return The number of lines analyzed
+	 */
+	public long analyze(InputStream input, Writer output) throws Exception {
+		BlockingQueue<CompletableFuture<String>> pending = new ArrayBlockingQueue<CompletableFuture<String>>(batchesInFlight);
+		CompletableFuture<String> end = CompletableFuture.completedFuture(null);
+		ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "TicTacToe analyzer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long[] lines = new long[1];
+
+		Thread reader = new Thread(() -> {
+			try (BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16)) {
+				ArrayList<String> batch = new ArrayList<String>(batchSize);
+				for (String line; (line = in.readLine()) != null; ) {
+					batch.add(line);
+					if (batch.size() == batchSize) {
+						pending.put(submit(batch, workers));
+						batch = new ArrayList<String>(batchSize);
+					}
+					lines[0]++;
+				}
+				if (!batch.isEmpty())
+					pending.put(submit(batch, workers));
+			}
+			catch (IOException e) {
+				// Wait for room like the batches do, so that the writer always sees the failure
+				try {
+					pending.put(CompletableFuture.failedFuture(e));
+				}
+				catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				try {
+					pending.put(end);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, "TicTacToe analyzer reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		// The calling thread is the writer
+		try {
+			for (CompletableFuture<String> batch; (batch = pending.take()) != end; )
+				output.write(batch.join());
+		}
+		finally {
+			workers.shutdownNow();
+			reader.interrupt();
+		}
+		return lines[0];
+	}
+
+	private CompletableFuture<String> submit(ArrayList<String> batch, ExecutorService workers) {
+		return CompletableFuture.supplyAsync(() -> {
+			StringBuilder results = new StringBuilder(batch.size() * 16);
+			Evaluator evaluator = evaluators.get();
+			for (int i = 0; i < batch.size(); i++)
+				analyzeLine(batch.get(i), evaluator, results);
+			return results.toString();
+		}, workers);
+	}
+
+	/**
+	 * Appends the result line for one position
+	 */
+	private void analyzeLine(String line, Evaluator evaluator, StringBuilder results) {
+		char[][] board;
+		boolean xTurn;
+		try {
+			String[] fields = line.trim().split("\\s+");
+			board = parseBoard(fields[0]);
+			int stones = 0, xs = 0;
+			for (int i = 0; i < board.length; i++)
+				for (int a = 0; a < board[i].length; a++) {
+					if (board[i][a] != ' ')
+						stones++;
+					if (board[i][a] == 'X')
+						xs++;
+				}
+			xTurn = fields.length > 1 ? fields[1].equalsIgnoreCase("X"):xs * 2 == stones;
+
+			double[] analysis = evaluator.analyze(board, xTurn);
+			appendValue(results, analysis[0]);
+			results.append(' ').append((int)analysis[1]).append(' ').append((int)analysis[2]);
+			if (allMoves)
+				appendMoveValues(board, xTurn, evaluator, results);
+		}
+		catch (RuntimeException e) {
+			results.append("ERROR ").append(e.getMessage());
+		}
+		results.append('\n');
+	}
+
+	/**
+	 * Appends the value after each move, row by row, with . for full cells
+	 */
+	private void appendMoveValues(char[][] board, boolean xTurn, Evaluator evaluator, StringBuilder results) {
+		for (int i = 0; i < board.length; i++) {
+			results.append(i == 0 ? ' ':'/');
+			for (int a = 0; a < board[i].length; a++) {
+				if (a > 0)
+					results.append(',');
+				if (board[i][a] != ' ' || rules.gameOver(board)) {
+					results.append('.');
+					continue;
+				}
+				board[i][a] = xTurn ? 'X':'O';
+				int result = rules.gameResult(board, i, a);
+				appendValue(results, result != 0 || rules.gameOver(board) ? result:evaluator.analyze(board, !xTurn)[0]);
+				board[i][a] = ' ';
+			}
+		}
+	}
+
+	private static void appendValue(StringBuilder results, double value) {
+		if (value == (int)value)
+			results.append((int)value);
+		else results.append(String.format("%.3f", value));
+	}
+
+	/**
+	 * Reads a board written as rows separated by /, with . for empty cells
+	 */
+	public static char[][] parseBoard(String text) {
+		String[] rows = text.split("/");
+		char[][] board = new char[rows.length][];
+		for (int i = 0; i < rows.length; i++) {
+			if (rows[i].length() != rows[0].length() || rows[i].isEmpty())
+				throw new IllegalArgumentException("rows of different lengths");
+			board[i] = new char[rows[i].length()];
+			for (int a = 0; a < board[i].length; a++) {
+				char c = Character.toUpperCase(rows[i].charAt(a));
+				if (c != 'X' && c != 'O' && c != '.')
+					throw new IllegalArgumentException("unknown cell " + rows[i].charAt(a));
+				board[i][a] = c == '.' ? ' ':c;
+			}
+		}
+		return board;
+	}
+}
@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays many games between two engines without a console, on several
+ * threads at once, and reports the first engine's wins, draws and
+ * losses, the games per second, and the latency percentiles of each
+ * engine's moves. The engines swap colors every game.
+ *
+ *     java TicTacToeArena engine engine [games] [threads] [anti] [rows columns winLength]
+ *
+ * An engine is one of:
+ *
+ *     random                     A random legal move
+ *     dfs                        TicTacToe.alternateFindBestMove (3x3, normal rules)
+ *     findBestMove               TicTacToePlus.findBestMove
+ *     alternateFindBestMove      TicTacToePlus.alternateFindBestMove
+ *     alphaBeta                  TicTacToePlus.alphaBetaFindBestMove
+ *     mcts:trials[:constant]     Monte Carlo Tree Search with its own expansion constant
+ *     tablebase:file             A TicTacToeTablebase lookup
+ *
+ * Every thread gets its own engines and its own tallies, which are only
+ * added up once all the games are over.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeArena {
+
+	/**
+	 * An engine picks the move coords to play on a board, which it may
+	 * change while thinking but must leave as it found it
+	 */
+	public interface Engine {
+		int[] move(char[][] board, boolean xTurn);
+	}
+
+	/**
+	 * The tallies of one thread's games, from the first engine's side
+	 */
+	public static class Results {
+		public long wins, draws, losses, winsAsX, winsAsO, lossesAsX, lossesAsO;
+		public final TicTacToeHistogram[] latencies = {new TicTacToeHistogram(), new TicTacToeHistogram()};
+
+		void add(Results other) {
+			wins += other.wins;
+			draws += other.draws;
+			losses += other.losses;
+			winsAsX += other.winsAsX;
+			winsAsO += other.winsAsO;
+			lossesAsX += other.lossesAsX;
+			lossesAsO += other.lossesAsO;
+			latencies[0].merge(other.latencies[0]);
+			latencies[1].merge(other.latencies[1]);
+		}
+
+		public long games() {
+			return wins + draws + losses;
+		}
+	}
+
+	public static void main(String... pumpkins) throws Exception {
+		if (pumpkins.length < 2) {
+			System.out.println("Usage: java TicTacToeArena engine engine [games] [threads] [anti] [rows columns winLength]");
+			return;
+		}
+		long games = pumpkins.length > 2 ? Long.parseLong(pumpkins[2]):10000;
+		int threads = pumpkins.length > 3 ? Integer.parseInt(pumpkins[3]):Runtime.getRuntime().availableProcessors();
+		boolean anti = pumpkins.length > 4 && Boolean.parseBoolean(pumpkins[4]);
+		int rows = pumpkins.length > 7 ? Integer.parseInt(pumpkins[5]):3;
+		int columns = pumpkins.length > 7 ? Integer.parseInt(pumpkins[6]):3;
+		TicTacToeRules rules = TicTacToeRules.of(pumpkins.length > 7 ? Integer.parseInt(pumpkins[7]):3, anti);
+
+		long start = System.nanoTime();
+		Results results = play(engine(pumpkins[0], rows, columns, rules), engine(pumpkins[1], rows, columns, rules), games, threads, rows, columns, rules);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		print(pumpkins[0], pumpkins[1], results, seconds, threads, rules);
+	}
+
+	/**
+	 * Returns a factory for the engine described by spec (see the class comment)
+	 */
+	public static Supplier<Engine> engine(String spec, int rows, int columns, TicTacToeRules rules) {
+		String[] parts = spec.split(":");
+		switch (parts[0]) {
+			case "random":
+				return () -> (board, xTurn) -> randomMove(board);
+			case "dfs":
+				if (rows != 3 || columns != 3 || !rules.equals(TicTacToeRules.standard))
+					throw new IllegalArgumentException("dfs only plays normal 3x3 Tic Tac Toe");
+				return () -> {
+					TicTacToe TTT = new TicTacToe(0);
+					return (board, xTurn) -> coords(TTT.alternateFindBestMove(board, xTurn));
+				};
+			case "findBestMove":
+				return () -> {
+					TicTacToePlus TTT = new TicTacToePlus(0, rows, columns, rules);
+					return (board, xTurn) -> coords(TTT.findBestMove(board, xTurn));
+				};
+			case "alternateFindBestMove":
+				return () -> {
+					TicTacToePlus TTT = new TicTacToePlus(0, rows, columns, rules);
+					return (board, xTurn) -> coords(TTT.alternateFindBestMove(board, xTurn));
+				};
+			case "alphaBeta":
+				return () -> {
+					TicTacToePlus TTT = new TicTacToePlus(0, rows, columns, rules);
+					return (board, xTurn) -> coords(TTT.alphaBetaFindBestMove(board, xTurn));
+				};
+			case "mcts":
+				int trials = parts.length > 1 ? Integer.parseInt(parts[1]):TicTacToePlus.monteCarloTrials;
+				double expansionConstant = parts.length > 2 ? Double.parseDouble(parts[2]):TicTacToePlus.expansionConstant;
+				return () -> (board, xTurn) -> {
+					TicTacToeMCTSNode root = new TicTacToeMCTSNode(board, xTurn, null, null, expansionConstant, rules);
+					for (int i = 0; i < trials; i++)
+						root.chooseChild();
+					return TicTacToePlus.getBestMove(root);
+				};
+			case "tablebase":
+				TicTacToeTablebase tablebase;
+				try {
+					tablebase = TicTacToeTablebase.open(parts[1]);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return () -> (board, xTurn) -> {
+					int[] analysis = tablebase.covers(board, rules) ? tablebase.bestMove(board):null;
+					return analysis != null && analysis[1] != -1 ? coords(analysis):randomMove(board);
+				};
+			default:
+				throw new IllegalArgumentException("Unknown engine " + spec);
+		}
+	}
+
+	/**
+	 * Turns an analysis array of {result, x, y} into move coords
+	 */
+	private static int[] coords(int[] analysis) {
+		return new int[] {analysis[1], analysis[2]};
+	}
+
+	private static int[] randomMove(char[][] board) {
+		int columns = board[0].length, count = 0, choice = -1;
+		TicTacToeRandom random = TicTacToeRandom.current();
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < columns; a++)
+				if (board[i][a] == ' ' && random.nextInt(++count) == 0)
+					choice = i * columns + a;
+		return new int[] {choice / columns, choice % columns};
+	}
+
+	/**
+	 * Plays games games between the engines on threads threads
+	 *
+	 * @param  first   The first engine's factory, called once per thread
+	 * @param  second  The second engine's factory
+	 * @param  games   The number of games to play
+	 * @param  threads The number of threads to play them on
+	 * @param  rows    The number of rows on the board
+	 * @param  columns The number of columns on the board
+	 * @param  rules   The rules the games are played by
+	 * @return         The results, from the first engine's side
+	 */
+	public static Results play(Supplier<Engine> first, Supplier<Engine> second, long games, int threads, int rows, int columns, TicTacToeRules rules) throws Exception {
+		AtomicLong nextGame = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Results>> workers = new ArrayList<Future<Results>>(threads);
+			for (int t = 0; t < threads; t++)
+				workers.add(pool.submit(() -> {
+					Engine[] engines = {first.get(), second.get()};
+					Results results = new Results();
+					char[][] board = new char[rows][columns];
+					for (long game; (game = nextGame.getAndIncrement()) < games; ) {
+						// The first engine plays X in even games
+						int x = (int)(game & 1);
+						int result = playGame(engines[x], engines[1 - x], board, results.latencies[x], results.latencies[1 - x], rules);
+						result = x == 0 ? result:-result;
+						if (result > 0) {
+							results.wins++;
+							if (x == 0)
+								results.winsAsX++;
+							else results.winsAsO++;
+						}
+						else if (result < 0) {
+							results.losses++;
+							if (x == 0)
+								results.lossesAsX++;
+							else results.lossesAsO++;
+						}
+						else results.draws++;
+					}
+					return results;
+				}));
+
+			Results results = new Results();
+			for (int t = 0; t < threads; t++)
+				results.add(workers.get(t).get());
+			return results;
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Plays a game from the empty board, timing every move
+	 *
+	 * @return The result of the game, 1 if X won, -1 if O won, 0 for a draw
+	 */
+	public static int playGame(Engine xEngine, Engine oEngine, char[][] board, TicTacToeHistogram xLatency, TicTacToeHistogram oLatency, TicTacToeRules rules) {
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < board[i].length; a++)
+				board[i][a] = ' ';
+		boolean xTurn = true;
+		int result = 0, emptyCells = board.length * board[0].length;
+		while (result == 0 && emptyCells > 0) {
+			long start = System.nanoTime();
+			int[] move = (xTurn ? xEngine:oEngine).move(board, xTurn);
+			(xTurn ? xLatency:oLatency).record(System.nanoTime() - start);
+
+			if (board[move[0]][move[1]] != ' ')
+				throw new IllegalStateException("An engine played on the occupied cell " + move[0] + " " + move[1]);
+			board[move[0]][move[1]] = xTurn ? 'X':'O';
+			result = rules.gameResult(board, move[0], move[1]);
+			emptyCells--;
+			xTurn = !xTurn;
+		}
+		return result;
+	}
+
+	private static void print(String first, String second, Results results, double seconds, int threads, TicTacToeRules rules) {
+		long games = results.games();
+		System.out.printf("%s vs %s, %d games on %d threads%s%n", first, second, games, threads, rules.anti ? ", anti rules":"");
+		System.out.printf("%s: %d wins (%.2f%%), %d draws (%.2f%%), %d losses (%.2f%%)%n", first,
+			results.wins, 100.0 * results.wins / games, results.draws, 100.0 * results.draws / games, results.losses, 100.0 * results.losses / games);
+		System.out.printf("as X: %d wins, %d losses; as O: %d wins, %d losses%n", results.winsAsX, results.lossesAsX, results.winsAsO, results.lossesAsO);
+		System.out.printf("%.0f games/s%n", games / seconds);
+		System.out.println("engine\tmoves\tmean us\tp50 us\tp90 us\tp99 us\tp99.9 us\tmax us");
+		String[] names = {first, second};
+		for (int e = 0; e < 2; e++) {
+			TicTacToeHistogram latency = results.latencies[e];
+			System.out.printf("%s\t%d\t%.1f\t%.1f\t%.1f\t%.1f\t%.1f\t%.1f%n", names[e], latency.count(), latency.mean() / 1e3,
+				latency.percentile(50) / 1e3, latency.percentile(90) / 1e3, latency.percentile(99) / 1e3, latency.percentile(99.9) / 1e3, latency.max() / 1e3);
+		}
+	}
+}
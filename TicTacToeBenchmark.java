@@ -0,0 +1,438 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Benchmarks for the Tic Tac Toe engines, run from the command line:
+ *
+ *     java TicTacToeBenchmark scaling [maxThreads] [trialsPerThread]
+ *     java TicTacToeBenchmark allocation [playouts]
+ *     java TicTacToeBenchmark memory [trials]
+ *     java TicTacToeBenchmark graph [trials]
+ *     java TicTacToeBenchmark policy [playouts]
+ *     java TicTacToeBenchmark ultimate [playouts] [maxThreads]
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeBenchmark {
+
+	public static void main(String... pumpkins) {
+		String benchmark = pumpkins.length > 0 ? pumpkins[0]:"scaling";
+		switch (benchmark) {
+			case "scaling":
+				int maxThreads = pumpkins.length > 1 ? Integer.parseInt(pumpkins[1]):Runtime.getRuntime().availableProcessors();
+				int trialsPerThread = pumpkins.length > 2 ? Integer.parseInt(pumpkins[2]):TicTacToePlus.monteCarloTrials;
+				parallelScaling(false, maxThreads, trialsPerThread);
+				parallelScaling(true, maxThreads, trialsPerThread);
+				break;
+			case "memory":
+				nodeMemory(pumpkins.length > 1 ? Integer.parseInt(pumpkins[1]):1000000);
+				break;
+			case "graph":
+				int trials = pumpkins.length > 1 ? Integer.parseInt(pumpkins[1]):TicTacToePlus.monteCarloTrials;
+				graphSavings(3, 3, trials);
+				graphSavings(4, 4, trials);
+				break;
+			case "policy":
+				int playouts = pumpkins.length > 1 ? Integer.parseInt(pumpkins[1]):10000000;
+				rolloutPolicies(TicTacToeRules.standard, playouts);
+				rolloutPolicies(TicTacToeRules.of(3, true), playouts);
+				break;
+			case "ultimate":
+				int ultimatePlayouts = pumpkins.length > 1 ? Integer.parseInt(pumpkins[1]):1000000;
+				ultimate(ultimatePlayouts, pumpkins.length > 2 ? Integer.parseInt(pumpkins[2]):Runtime.getRuntime().availableProcessors());
+				break;
+			case "allocation":
+				rolloutAllocation(pumpkins.length > 1 ? Integer.parseInt(pumpkins[1]):1000000);
+				break;
+			default:
+				System.out.println("Unknown benchmark " + benchmark);
+		}
+	}
+
+	/**
+	 * Prints the playouts per second of the parallel searches for 1, 2,
+	 * 4, ... up to maxThreads threads. The searches start from a position
+	 * where X took a corner, where O has to take the centre or lose, and
+	 * the share of the root's trials spent on the centre is printed to
+	 * show the quality of the search.
+	 *
+	 * @param tree            Whether to use tree instead of root parallelism
+	 * @param maxThreads      The most threads to try
+	 * @param trialsPerThread The trials each thread runs
+	 */
+	public static void parallelScaling(boolean tree, int maxThreads, int trialsPerThread) {
+		System.out.println((tree ? "Tree":"Root") + " parallel MCTS, " + trialsPerThread + " trials per thread, "
+			+ Runtime.getRuntime().availableProcessors() + " cores");
+		System.out.println("threads\tplayouts/s\tspeedup\tbest move share");
+
+		// Warm up the JIT on both the single and multi threaded paths
+		for (int run = 0; run < 5; run++) {
+			parallelSearch(tree, 1, trialsPerThread);
+			parallelSearch(tree, 2, trialsPerThread);
+		}
+
+		double single = 0;
+		for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1:Math.min(threads * 2, maxThreads)) {
+			// Keep the best of three runs
+			double playoutsPerSecond = 0, bestMoveShare = 0;
+			for (int run = 0; run < 3; run++) {
+				long start = System.nanoTime();
+				double centreShare = parallelSearch(tree, threads, trialsPerThread);
+				double seconds = (System.nanoTime() - start) / 1e9;
+				playoutsPerSecond = Math.max(playoutsPerSecond, (double)threads * trialsPerThread / seconds);
+				bestMoveShare += centreShare / 3;
+			}
+			if (threads == 1)
+				single = playoutsPerSecond;
+			System.out.printf("%d\t%.0f\t%.2f\t%.3f%n", threads, playoutsPerSecond, playoutsPerSecond / single, bestMoveShare);
+		}
+	}
+
+	/**
+	 * Searches the position with the corner taken, returning the share of
+	 * the trials that went to the centre
+	 */
+	private static double parallelSearch(boolean tree, int threads, int trialsPerThread) {
+		TicTacToePlus TTT = new TicTacToePlus(0);
+		TTT.playMove(0, 0);
+		TTT.monteCarloThreads = threads;
+		TTT.trialsPerThread = trialsPerThread;
+		if (threads == 1)
+			for (int i = 0; i < trialsPerThread; i++)
+				TTT.root.chooseChild();
+		else if (tree)
+			TTT.treeParallelSearch();
+		else return centreShare(TTT.root, TTT.rootParallelSearch());
+		return centreShare(TTT.root, null);
+	}
+
+	/**
+	 * Returns the share of the root's trials that went to the centre
+	 *
+	 * @param root   The root
+	 * @param trials The trials of root's children, or null for their own
+	 */
+	private static double centreShare(TicTacToeMCTSNode root, int[] trials) {
+		int centre = 0, total = 0;
+		for (int i = 0; i < root.children.length; i++) {
+			int childTrials = trials == null ? root.children[i].stats.totalTrials:trials[i];
+			total += childTrials;
+			if (root.children[i].lastMove[0] == 1 && root.children[i].lastMove[1] == 1)
+				centre += childTrials;
+		}
+		return (double)centre / total;
+	}
+
+	/**
+	 * Prints the playouts per second of Ultimate Tic Tac Toe from the
+	 * empty board, then the trials per second of a search of the same
+	 * tree by 1, 2, 4, ... up to maxThreads threads, to size the machines
+	 * that run it. A trial also picks and expands nodes, and its playout
+	 * starts a move deeper, so the two rates differ.
+	 *
+	 * @param playouts   The number of playouts to measure, a tenth of which are trials
+	 * @param maxThreads The most threads to try
+	 */
+	public static void ultimate(int playouts, int maxThreads) {
+		System.out.println("Ultimate Tic Tac Toe, " + playouts + " playouts, " + Runtime.getRuntime().availableProcessors() + " cores");
+		int[] boards = new int[TicTacToeUltimateBitboard.numBoards];
+		TicTacToeRandom random = new TicTacToeRandom(1);
+		// Warm up, then keep the best of three runs
+		double playoutsPerSecond = 0;
+		for (int run = 0; run < 4; run++) {
+			long start = System.nanoTime();
+			int sum = 0;
+			for (int i = 0; i < playouts; i++) {
+				Arrays.fill(boards, 0);
+				sum += TicTacToeUltimateBitboard.playout(boards, 0, -1, true, random);
+			}
+			if (run > 0)
+				playoutsPerSecond = Math.max(playoutsPerSecond, playouts / ((System.nanoTime() - start) / 1e9));
+			TicTacToeMicrobenchmark.sink += sum;
+		}
+		System.out.printf("playouts/s\t%.0f%n", playoutsPerSecond);
+
+		int trialsPerThread = playouts / 10;
+		ultimateSearch(1, trialsPerThread);
+		System.out.println("threads\ttrials/s\tspeedup\tnodes");
+		double single = 0;
+		for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1:Math.min(threads * 2, maxThreads)) {
+			double trialsPerSecond = 0;
+			long nodes = 0;
+			for (int run = 0; run < 3; run++) {
+				long start = System.nanoTime();
+				TicTacToeMCTSNode root = ultimateSearch(threads, trialsPerThread);
+				trialsPerSecond = Math.max(trialsPerSecond, (double)threads * trialsPerThread / ((System.nanoTime() - start) / 1e9));
+				nodes = root.size();
+			}
+			if (threads == 1)
+				single = trialsPerSecond;
+			System.out.printf("%d\t%.0f\t%.2f\t%d%n", threads, trialsPerSecond, trialsPerSecond / single, nodes);
+		}
+	}
+
+	/**
+	 * Searches a new Ultimate Tic Tac Toe tree with threads threads, each
+	 * running trialsPerThread trials, with virtual losses if there are
+	 * more than one
+	 */
+	private static TicTacToeMCTSNode ultimateSearch(int threads, int trialsPerThread) {
+		final TicTacToeUltimateNode root = new TicTacToeUltimate(0).root;
+		TicTacToeRandom random = new TicTacToeRandom(1);
+		Thread[] searches = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final TicTacToeRandom threadRandom = random.split();
+			searches[t] = new Thread(() -> {
+				for (int i = 0; i < trialsPerThread; i++)
+					root.chooseChild(threads > 1 ? 1:0, threadRandom);
+			});
+			searches[t].start();
+		}
+		try {
+			for (int t = 0; t < threads; t++)
+				searches[t].join();
+		}
+		catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		return root;
+	}
+
+	/**
+	 * Prints the bytes allocated per playout by runSimulation, on 3x3
+	 * Tic Tac Toe and on a 7x7 board with 4 in a row, and per trial
+	 * by chooseChild once the tree has stopped growing much. The
+	 * playouts should allocate nothing once the JIT has warmed up.
+	 *
+	 * @param playouts The number of playouts to measure
+	 */
+	public static void rolloutAllocation(int playouts) {
+		System.out.println("Rollout allocation, " + playouts + " playouts");
+		System.out.println("benchmark\tbytes/playout\tplayouts/s");
+
+		TicTacToeMCTSNode node = new TicTacToeMCTSNode(new TicTacToePlus(0).board, true, null, null, TicTacToePlus.expansionConstant, TicTacToeRules.standard);
+		measureAllocation("runSimulation 3x3", playouts, () -> node.runSimulation());
+
+		TicTacToeMCTSNode bigNode = new TicTacToeMCTSNode(new TicTacToePlus(0, 7, 7).board, true, null, null, TicTacToePlus.expansionConstant, TicTacToeRules.of(4, false));
+		measureAllocation("runSimulation 7x7", playouts / 20, () -> bigNode.runSimulation());
+
+		TicTacToePlus TTT = new TicTacToePlus(0);
+		for (int i = 0; i < playouts; i++)
+			TTT.root.chooseChild();
+		measureAllocation("chooseChild 3x3", playouts, () -> TTT.root.chooseChild());
+	}
+
+	private static void measureAllocation(String name, int playouts, Runnable playout) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		// Warm up so that the JIT has compiled (and scalar replaced) the playout
+		for (int i = 0; i < playouts; i++)
+			playout.run();
+
+		long bytes = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		for (int i = 0; i < playouts; i++)
+			playout.run();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+		System.out.printf("%s\t%.3f\t%.0f%n", name, (double)bytes / playouts, playouts / seconds);
+	}
+
+	/**
+	 * Prints the bytes per node of a TicTacToeMCTSNode tree, measured
+	 * from the heap, next to the bytes per node of a TicTacToeMCTSPool
+	 * after the same number of trials on a 4x4 board
+	 *
+	 * @param trials The number of trials to build the trees with
+	 */
+	public static void nodeMemory(int trials) {
+		System.out.println("Tree memory, 4x4 board, " + trials + " trials");
+		System.out.println("tree\tnodes\tbytes/node");
+		TicTacToeRules rules = TicTacToeRules.of(4, false);
+		char[][] board = new TicTacToePlus(0, 4, 4, rules).board;
+
+		long used = usedMemory();
+		TicTacToeMCTSNode root = new TicTacToeMCTSNode(board, true, null, null, TicTacToePlus.expansionConstant, rules);
+		for (int i = 0; i < trials; i++)
+			root.chooseChild();
+		long bytes = usedMemory() - used;
+		long nodes = root.size();
+		System.out.printf("TicTacToeMCTSNode\t%d\t%.1f%n", nodes, (double)bytes / nodes);
+
+		root = null;
+		used = usedMemory();
+		TicTacToeMCTSPool pool = new TicTacToeMCTSPool(board, true, TicTacToePlus.expansionConstant, rules);
+		for (int i = 0; i < trials; i++)
+			pool.chooseChild();
+		bytes = usedMemory() - used;
+		System.out.printf("TicTacToeMCTSPool\t%d\t%d (%.1f with unused capacity)%n", pool.size(), TicTacToeMCTSPool.bytesPerNode(), (double)bytes / pool.size());
+	}
+
+	/**
+	 * Prints the nodes and heap memory of a TicTacToeMCTSNode tree and of
+	 * a TicTacToeMCTSGraph after the same number of trials from the empty
+	 * board, along with the transpositions the graph found and the trials
+	 * it reused from them, which the tree would have had to run again
+	 *
+	 * @param size      The width and height of the board
+	 * @param winLength The number of stones in a row needed to win
+	 * @param trials    The number of trials to run
+	 */
+	public static void graphSavings(int size, int winLength, int trials) {
+		System.out.println("Graph savings, " + size + "x" + size + " board, " + winLength + " in a row, " + trials + " trials");
+		System.out.println("search\tnodes\tbytes\ttranspositions\ttrials reused\tplayouts/s");
+		TicTacToeRules rules = TicTacToeRules.of(winLength, false);
+		char[][] board = new TicTacToePlus(0, size, size, rules).board;
+
+		long used = usedMemory();
+		long start = System.nanoTime();
+		TicTacToeMCTSNode root = new TicTacToeMCTSNode(board, true, null, null, TicTacToePlus.expansionConstant, rules);
+		for (int i = 0; i < trials; i++)
+			root.chooseChild();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long treeBytes = usedMemory() - used;
+		long treeNodes = root.size();
+		System.out.printf("tree\t%d\t%d\t-\t-\t%.0f%n", treeNodes, treeBytes, trials / seconds);
+
+		root = null;
+		used = usedMemory();
+		start = System.nanoTime();
+		TicTacToeMCTSGraph graph = new TicTacToeMCTSGraph(board, true, TicTacToePlus.expansionConstant, rules);
+		for (int i = 0; i < trials; i++)
+			graph.chooseChild();
+		seconds = (System.nanoTime() - start) / 1e9;
+		long graphBytes = usedMemory() - used;
+		System.out.printf("graph\t%d\t%d\t%d\t%d\t%.0f%n", graph.size(), graphBytes, graph.transpositions, graph.trialsReused, trials / seconds);
+		System.out.printf("The graph has %.1f%% of the tree's nodes and uses %.1f%% of its memory%n",
+			100.0 * graph.size() / treeNodes, 100.0 * graphBytes / treeBytes);
+	}
+
+	/**
+	 * Compares the rollout policies on 3x3 boards under the passed rules.
+	 * Speed is the playouts per second from the empty board. Quality is
+	 * measured on every position reachable with best or worse play, as
+	 * the share of them where a flat Monte Carlo search (the move with
+	 * the best mean playout) and a Monte Carlo tree search pick a move
+	 * that is as good as the best move with perfect play.
+	 *
+	 * @param rules    The rules to compare the policies under
+	 * @param playouts The number of playouts to time each policy with
+	 */
+	public static void rolloutPolicies(TicTacToeRules rules, int playouts) {
+		System.out.println("Rollout policies, " + rules + ", " + playouts + " playouts");
+		System.out.println("policy	playouts/s	flat best move	mcts best move");
+		int flatPlayouts = 100, mctsTrials = 100;
+		ArrayList<char[][]> positions = new ArrayList<char[][]>();
+		collectPositions(new TicTacToePlus(0, 3, 3, rules).board, true, rules, new HashSet<Long>(), positions);
+		TicTacToePlus exact = new TicTacToePlus(0, 3, 3, rules);
+
+		TicTacToeRolloutPolicy[] policies = {TicTacToeRolloutPolicy.heuristic, TicTacToeRolloutPolicy.threats};
+		for (int p = 0; p < policies.length; p++) {
+			TicTacToeRules policyRules = rules.withPolicy(policies[p]);
+			// Every policy gets the same seed, so reruns measure the same games
+			TicTacToeRandom random = new TicTacToeRandom(1);
+			// Warm up, then keep the best of three runs
+			double playoutsPerSecond = 0;
+			for (int run = 0; run < 4; run++) {
+				long start = System.nanoTime();
+				int sum = 0;
+				for (int i = 0; i < playouts; i++)
+					sum += policyRules.playout(0, 0, true, random);
+				if (run > 0)
+					playoutsPerSecond = Math.max(playoutsPerSecond, playouts / ((System.nanoTime() - start) / 1e9));
+				TicTacToeMicrobenchmark.sink += sum;
+			}
+
+			int flatBest = 0, mctsBest = 0;
+			for (int i = 0; i < positions.size(); i++) {
+				char[][] board = positions.get(i);
+				boolean xTurn = stones(board) % 2 == 0;
+				if (bestMove(exact, board, xTurn, flatMove(policyRules, board, xTurn, flatPlayouts, random)))
+					flatBest++;
+				TicTacToeMCTSNode root = new TicTacToeMCTSNode(board, xTurn, null, null, TicTacToePlus.expansionConstant, policyRules);
+				for (int t = 0; t < mctsTrials; t++)
+					root.chooseChild(random);
+				int[] move = TicTacToePlus.getBestMove(root);
+				if (bestMove(exact, board, xTurn, move[0] * 3 + move[1]))
+					mctsBest++;
+			}
+			System.out.printf("%s	%.0f	%.3f	%.3f%n", policies[p], playoutsPerSecond,
+				(double)flatBest / positions.size(), (double)mctsBest / positions.size());
+		}
+		System.out.println(positions.size() + " positions, " + flatPlayouts + " playouts per move for flat, " + mctsTrials + " trials for mcts");
+	}
+
+	/**
+	 * Adds every position reachable from board that isn't over and isn't
+	 * symmetric to one already added
+	 */
+	private static void collectPositions(char[][] board, boolean xTurn, TicTacToeRules rules, HashSet<Long> seen, ArrayList<char[][]> positions) {
+		if (rules.gameOver(board) || !seen.add(TicTacToeSymmetry.canonicalHash(board)))
+			return;
+		char[][] copy = new char[3][];
+		for (int i = 0; i < 3; i++)
+			copy[i] = board[i].clone();
+		positions.add(copy);
+		for (int i = 0; i < 3; i++)
+			for (int a = 0; a < 3; a++)
+				if (board[i][a] == ' ') {
+					board[i][a] = xTurn ? 'X':'O';
+					collectPositions(board, !xTurn, rules, seen, positions);
+					board[i][a] = ' ';
+				}
+	}
+
+	private static int stones(char[][] board) {
+		int stones = 0;
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < board[i].length; a++)
+				if (board[i][a] != ' ')
+					stones++;
+		return stones;
+	}
+
+	/**
+	 * Returns the cell of the move with the best mean result over playouts playouts
+	 */
+	private static int flatMove(TicTacToeRules rules, char[][] board, boolean xTurn, int playouts, TicTacToeRandom random) {
+		int xBits = TicTacToeBitboard.bits(board, 'X'), oBits = TicTacToeBitboard.bits(board, 'O');
+		int bestCell = -1;
+		long bestSum = Long.MIN_VALUE;
+		for (int cell = 0; cell < TicTacToeBitboard.numCells; cell++) {
+			if (((xBits | oBits) & (1 << cell)) != 0)
+				continue;
+			int childX = xTurn ? xBits | (1 << cell):xBits, childO = xTurn ? oBits:oBits | (1 << cell);
+			long sum = 0;
+			for (int i = 0; i < playouts; i++)
+				sum += rules.playout(childX, childO, !xTurn, random);
+			if (!xTurn)
+				sum = -sum;
+			if (sum > bestSum) {
+				bestSum = sum;
+				bestCell = cell;
+			}
+		}
+		return bestCell;
+	}
+
+	/**
+	 * Returns true if the move is as good as the best move with perfect play
+	 */
+	private static boolean bestMove(TicTacToePlus exact, char[][] board, boolean xTurn, int cell) {
+		int best = exact.alphaBetaFindBestMove(board, xTurn)[0];
+		board[cell / 3][cell % 3] = xTurn ? 'X':'O';
+		int value = exact.searchValue(board, !xTurn);
+		board[cell / 3][cell % 3] = ' ';
+		return value == best;
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
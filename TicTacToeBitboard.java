@@ -0,0 +1,231 @@
+/**
+ * A bitboard representation of a 3x3 Tic Tac Toe position.
+ * Each side is stored as a 9 bit mask, where bit (i * 3 + a)
+ * corresponds to board[i][a]. Win and draw detection then take
+ * a couple of mask operations instead of scanning a char[][].
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeBitboard {
+
+	public static final int size = 3;
+	public static final int numCells = size * size;
+
+	/**
+	 * A mask with every cell of the board set
+	 */
+	public static final int fullBoard = (1 << numCells) - 1;
+
+	/**
+	 * The eight winning lines, in the same order that the
+	 * char[][] scans used to check them: the rows of board[i],
+	 * the columns, then the two diagonals.
+	 */
+	public static final int[] winLines = {
+		0007, 0070, 0700,
+		0111, 0222, 0444,
+		0421, 0124
+	};
+
+	/**
+	 * wins[bits] is true if the stones in bits contain a full line
+	 */
+	private static final boolean[] wins = new boolean[1 << numCells];
+
+	static {
+		for (int bits = 0; bits < wins.length; bits++)
+			for (int i = 0; i < winLines.length; i++)
+				if ((bits & winLines[i]) == winLines[i]) {
+					wins[bits] = true;
+					break;
+				}
+	}
+
+	/**
+	 * Returns true if the board can be represented as a bitboard
+	 *
+	 * @param  board The board to check
+	 * @return       Whether or not the board is 3x3
+	 */
+	public static boolean fits(char[][] board) {
+		return board.length == size && board[0].length == size;
+	}
+
+	/**
+	 * Returns the bit for the cell board[i][a]
+	 */
+	public static int bit(int i, int a) {
+		return 1 << (i * size + a);
+	}
+
+	/**
+	 * Returns the mask of all cells containing the passed color
+	 *
+	 * @param  board The current state of the board
+	 * @param  color Either 'X' or 'O'
+	 * @return       A 9 bit mask of that color's stones
+	 */
+	public static int bits(char[][] board, char color) {
+		int bits = 0;
+		for (int i = 0; i < size; i++)
+			for (int a = 0; a < size; a++)
+				if (board[i][a] == color)
+					bits |= bit(i, a);
+		return bits;
+	}
+
+	/**
+	 * Writes a bitboard position back into a char[][]
+	 */
+	public static void toBoard(int xBits, int oBits, char[][] board) {
+		for (int i = 0; i < size; i++)
+			for (int a = 0; a < size; a++) {
+				int bit = bit(i, a);
+				board[i][a] = (xBits & bit) != 0 ? 'X':(oBits & bit) != 0 ? 'O':' ';
+			}
+	}
+
+	/**
+	 * Returns true if the stones contain a complete line
+	 */
+	public static boolean hasWin(int bits) {
+		return wins[bits];
+	}
+
+	/**
+	 * The bitboard equivalent of TicTacToeRules.gameResult
+	 *
+	 * @param  xBits The X stones
+	 * @param  oBits The O stones
+	 * @param  anti  Whether or not Anti Tic Tac Toe rules are used
+	 * @return       1 if X won, -1 if O won, 0 otherwise
+	 */
+	public static int gameResult(int xBits, int oBits, boolean anti) {
+		if (wins[xBits])
+			return anti ? -1:1;
+		if (wins[oBits])
+			return anti ? 1:-1;
+		return 0;
+	}
+
+	/**
+	 * The bitboard equivalent of TicTacToeRules.gameOver
+	 */
+	public static boolean gameOver(int xBits, int oBits) {
+		return wins[xBits] || wins[oBits] || (xBits | oBits) == fullBoard;
+	}
+
+	/**
+	 * The bitboard equivalent of TicTacToePlus.possibleMoves. The
+	 * moves are listed in the same (reversed) order as the original.
+	 */
+	public static int[][] possibleMoves(int xBits, int oBits) {
+		int empty = fullBoard & ~(xBits | oBits);
+		int[][] possibleMoves = new int[Integer.bitCount(empty)][2];
+		for (int cell = numCells - 1, move = 0; cell >= 0; cell--)
+			if ((empty & (1 << cell)) != 0) {
+				possibleMoves[move][0] = cell / size;
+				possibleMoves[move][1] = cell % size;
+				move++;
+			}
+		return possibleMoves;
+	}
+
+	/**
+	 * The bitboard equivalent of TicTacToeRules.getWinningMove, returning
+	 * the cell that completes the first line with two stones of the same
+	 * color, or -1 if there is none
+	 */
+	public static int getWinningCell(int xBits, int oBits) {
+		int empty = fullBoard & ~(xBits | oBits);
+		for (int i = 0; i < winLines.length; i++) {
+			int line = winLines[i];
+			if ((line & empty) != 0 && (Integer.bitCount(line & xBits) == 2 || Integer.bitCount(line & oBits) == 2))
+				return Integer.numberOfTrailingZeros(line & empty);
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the nth set bit in the mask
+	 */
+	public static int nthCell(int mask, int n) {
+		for (; n > 0; n--)
+			mask &= mask - 1;
+		return Integer.numberOfTrailingZeros(mask);
+	}
+
+	/**
+	 * The moves of TicTacToeRolloutPolicy.heuristic, returning a cell
+	 * index instead of a new int array
+	 */
+	public static int getRandomCell(int xBits, int oBits, boolean xTurn, boolean anti, TicTacToeRandom random) {
+		return anti ? getRandomAntiCell(xBits, oBits, xTurn, random):getRandomCell(xBits, oBits, random);
+	}
+
+	/**
+	 * getRandomCell for normal rules: a cell that completes a line for
+	 * either player, or a random empty cell if there is none
+	 */
+	public static int getRandomCell(int xBits, int oBits, TicTacToeRandom random) {
+		int victoryCell = getWinningCell(xBits, oBits);
+		if (victoryCell != -1)
+			return victoryCell;
+		int empty = fullBoard & ~(xBits | oBits);
+		return nthCell(empty, random.nextInt(Integer.bitCount(empty)));
+	}
+
+	/**
+	 * getRandomCell for Anti Tic Tac Toe: a random cell that doesn't
+	 * complete a line for the player moving, or any random empty cell
+	 * if they all do
+	 */
+	public static int getRandomAntiCell(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+		int empty = fullBoard & ~(xBits | oBits);
+		int own = xTurn ? xBits:oBits, safe = 0;
+		for (int moves = empty; moves != 0; moves &= moves - 1)
+			if (!wins[own | (moves & -moves)])
+				safe |= moves & -moves;
+		if (safe != 0)
+			empty = safe;
+		return nthCell(empty, random.nextInt(Integer.bitCount(empty)));
+	}
+
+	/**
+	 * Plays random moves (see getRandomCell) from the position until
+	 * the game ends, without allocating anything
+	 *
+	 * @return The result of the game at the end of the playout
+	 */
+	public static int playout(int xBits, int oBits, boolean xTurn, boolean anti, TicTacToeRandom random) {
+		return anti ? antiPlayout(xBits, oBits, xTurn, random):playout(xBits, oBits, xTurn, random);
+	}
+
+	/**
+	 * playout for normal rules, with no rule checks in its loop
+	 */
+	public static int playout(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+		while (!gameOver(xBits, oBits)) {
+			int move = 1 << getRandomCell(xBits, oBits, random);
+			if (xTurn)
+				xBits |= move;
+			else oBits |= move;
+			xTurn = !xTurn;
+		}
+		return gameResult(xBits, oBits, false);
+	}
+
+	/**
+	 * playout for Anti Tic Tac Toe, with no rule checks in its loop
+	 */
+	public static int antiPlayout(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+		while (!gameOver(xBits, oBits)) {
+			int move = 1 << getRandomAntiCell(xBits, oBits, xTurn, random);
+			if (xTurn)
+				xBits |= move;
+			else oBits |= move;
+			xTurn = !xTurn;
+		}
+		return gameResult(xBits, oBits, true);
+	}
+}
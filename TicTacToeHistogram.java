@@ -0,0 +1,141 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds,
+ * with buckets spaced logarithmically: values under 16 get a bucket
+ * each, and every power of two above that is split into 16 buckets, so a
+ * percentile is within about 6% of the real value. Recording is a
+ * couple of shifts and an increment, with no allocation.
+ *
+ * A histogram isn't thread-safe. Give each thread its own and merge
+ * them at the end, or record to a Concurrent one.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeHistogram {
+
+	private static final int subBits = 4, subBuckets = 1 << subBits, numBuckets = 64 * subBuckets;
+
+	private final long[] counts = new long[numBuckets];
+	private long total, sum, max;
+
+	/**
+	 * A histogram that any number of threads can record to at once
+	 * without a lock: each bucket is an atomic counter, and the sum and
+	 * max are a LongAdder and a LongAccumulator. It is read through a
+	 * snapshot, which may miss values recorded while it is taken.
+	 */
+	public static class Concurrent {
+		private final AtomicLongArray counts = new AtomicLongArray(numBuckets);
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		public void record(long value) {
+			value = Math.max(value, 0);
+			counts.incrementAndGet(bucket(value));
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		/**
+		 * Returns a histogram of the values recorded so far
+		 */
+		public TicTacToeHistogram snapshot() {
+			TicTacToeHistogram histogram = new TicTacToeHistogram();
+			for (int i = 0; i < numBuckets; i++)
+				histogram.total += histogram.counts[i] = counts.get(i);
+			histogram.sum = sum.sum();
+			histogram.max = max.get();
+			return histogram;
+		}
+
+		/**
+		 * Throws away every value recorded so far
+		 */
+		public void clear() {
+			for (int i = 0; i < numBuckets; i++)
+				counts.set(i, 0);
+			sum.reset();
+			max.reset();
+		}
+	}
+
+	/**
+	 * Adds a value to the histogram
+	 */
+	public void record(long value) {
+		value = Math.max(value, 0);
+		counts[bucket(value)]++;
+		total++;
+		sum += value;
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds every value recorded in the other histogram
+	 */
+	public void merge(TicTacToeHistogram other) {
+		for (int i = 0; i < counts.length; i++)
+			counts[i] += other.counts[i];
+		total += other.total;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Throws away every value recorded so far
+	 */
+	public void clear() {
+		Arrays.fill(counts, 0);
+		total = sum = max = 0;
+	}
+
+	private static int bucket(long value) {
+		if (value < subBuckets)
+			return (int)value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		return (exponent - subBits + 1) * subBuckets + (int)(value >>> (exponent - subBits)) - subBuckets;
+	}
+
+	/**
+	 * The inverse of bucket, returning the smallest value in the bucket
+	 */
+	private static long lowestValue(int bucket) {
+		if (bucket < subBuckets)
+			return bucket;
+		int group = bucket / subBuckets;
+		return (long)(subBuckets + bucket % subBuckets) << (group - 1);
+	}
+
+	public long count() {
+		return total;
+	}
+
+	public long max() {
+		return max;
+	}
+
+	public double mean() {
+		return total == 0 ? 0:(double)sum / total;
+	}
+
+	/**
+	 * Returns the value that percentile percent of the values are
+	 * less than or equal to, to the histogram's precision
+	 *
+	 * @param  percentile The percentile, from 0 to 100
+	 * @return            The value at the percentile
+	 */
+	public long percentile(double percentile) {
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total)), seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min(lowestValue(i), max);
+		}
+		return max;
+	}
+}
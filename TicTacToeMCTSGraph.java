@@ -0,0 +1,297 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A Monte Carlo search over a graph of positions instead of a tree.
+ * Every position is stored once, in a table keyed by its canonical
+ * (symmetry reduced) hash and turn, so positions reached through
+ * different move orders, or through symmetric moves, share one node
+ * and pool their statistics. Tic Tac Toe positions can't repeat, so
+ * the graph has no cycles.
+ *
+ * A node's board is the orientation it was first reached in, and its
+ * children's moves are cells of that board. A trial remembers the path
+ * it took and backpropogates along it, since a node can have many
+ * parents. Like TicTacToeMCTSPool, a graph must only be searched by one
+ * thread at a time.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeMCTSGraph {
+
+	/**
+	 * A position in the graph
+	 */
+	static class Node {
+		final char[][] board;
+		final boolean xTurn;
+		final int result, emptyCells;
+		int hits, misses, totalTrials;
+		Node[] children;
+		short[] moves;
+
+		Node(char[][] board, boolean xTurn, int result, int emptyCells) {
+			this.board = new char[board.length][];
+			for (int i = 0; i < board.length; i++)
+				this.board[i] = board[i].clone();
+			this.xTurn = xTurn;
+			this.result = result;
+			this.emptyCells = emptyCells;
+		}
+	}
+
+	public double expansionConstant;
+	public final TicTacToeRules rules;
+
+	private final HashMap<Long, Node> positions = new HashMap<Long, Node>();
+	private Node root;
+	/**
+	 * Maps a cell of root's board to the same cell of the game's board
+	 */
+	private int rootSymmetry;
+
+	/**
+	 * The nodes of the current trial, and a board to expand nodes on
+	 */
+	private Node[] path = new Node[0];
+	private char[][] board = new char[0][0];
+
+	/**
+	 * The number of times an expansion found a child that was already in
+	 * the graph, and the trials those children already had. A tree would
+	 * have built a new subtree for each of them and had to run those
+	 * trials again.
+	 */
+	public long transpositions, trialsReused;
+
+	public TicTacToeMCTSGraph(char[][] board, boolean xTurn, double expansionConstant, TicTacToeRules rules) {
+		this.expansionConstant = expansionConstant;
+		this.rules = rules;
+		setRoot(board, xTurn);
+	}
+
+	/**
+	 * Moves the root to the passed position, keeping its node and
+	 * statistics if the position (or a symmetric one) is in the graph
+	 *
+	 * @param board The current state of the board
+	 * @param xTurn Whether or not it is X's turn
+	 */
+	public void setRoot(char[][] board, boolean xTurn) {
+		int rows = board.length, columns = board[0].length;
+		if (this.board.length != rows || this.board[0].length != columns) {
+			clear();
+			this.board = new char[rows][columns];
+			path = new Node[rows * columns + 2];
+		}
+
+		int sym = TicTacToeSymmetry.canonicalSymmetry(board);
+		long key = key(TicTacToeSymmetry.hash(board, sym), xTurn);
+		root = positions.get(key);
+		if (root == null) {
+			int emptyCells = 0;
+			for (int i = 0; i < rows; i++)
+				for (int a = 0; a < columns; a++)
+					if (board[i][a] == ' ')
+						emptyCells++;
+			root = new Node(board, xTurn, rules.gameResult(board), emptyCells);
+			positions.put(key, root);
+		}
+		// Go from root's board to the canonical image, then back to the game's board
+		rootSymmetry = TicTacToeSymmetry.compose(TicTacToeSymmetry.canonicalSymmetry(root.board), TicTacToeSymmetry.inverse(sym));
+	}
+
+	private static long key(long hash, boolean xTurn) {
+		return TicTacToeTranspositionTable.key(hash, xTurn ? 1:0);
+	}
+
+	/**
+	 * Throws away every position in the graph
+	 */
+	public void clear() {
+		positions.clear();
+		transpositions = trialsReused = 0;
+	}
+
+	/**
+	 * Returns the number of positions in the graph
+	 */
+	public int size() {
+		return positions.size();
+	}
+
+	/**
+	 * Returns the number of trials run through the root
+	 */
+	public int rootTrials() {
+		return root.totalTrials;
+	}
+
+	/**
+	 * Choose a child, run a simulation if needed, and then
+	 * backpropogate the results along the path taken, with the
+	 * current thread's random numbers
+	 */
+	public void chooseChild() {
+		chooseChild(TicTacToeRandom.current());
+	}
+
+	/**
+	 * Choose a child like chooseChild(), with the passed random numbers,
+	 * so that the same seed always searches the graph the same way
+	 */
+	public void chooseChild(TicTacToeRandom random) {
+		Node node = root;
+		int depth = 0;
+
+		while (true) {
+			path[depth++] = node;
+			// If the node's board represents a completed game, backpropogate the results
+			if (node.result != 0 || node.emptyCells == 0) {
+				backPropogate(depth, node.result);
+				return;
+			}
+			if (node.children == null)
+				expand(node, random);
+
+			Node[] children = node.children;
+			int countUnexplored = 0;
+			Node unexplored = null;
+			for (int i = 0; i < children.length; i++)
+				if (children[i].totalTrials == 0 && random.nextInt(++countUnexplored) == 0)
+					unexplored = children[i];
+
+			// Run a simulation for a random unexplored child
+			if (unexplored != null) {
+				path[depth++] = unexplored;
+				backPropogate(depth, playout(unexplored, random));
+				return;
+			}
+
+			// Otherwise descend into the child with the best potential
+			Node bestChild = null;
+			double bestPotential = Double.NEGATIVE_INFINITY, logTrials = Math.log(Math.max(node.totalTrials, 1));
+			for (int i = 0; i < children.length; i++) {
+				double w = children[i].misses - children[i].hits, n = children[i].totalTrials;
+				double potential = w / n + expansionConstant * Math.sqrt(logTrials / n);
+				if (potential > bestPotential) {
+					bestPotential = potential;
+					bestChild = children[i];
+				}
+			}
+			node = bestChild;
+		}
+	}
+
+	private int playout(Node node, TicTacToeRandom random) {
+		if (node.result != 0 || node.emptyCells == 0)
+			return node.result;
+		if (rules.bitboard(node.board))
+			return rules.playout(TicTacToeBitboard.bits(node.board, 'X'), TicTacToeBitboard.bits(node.board, 'O'), node.xTurn, random);
+		return TicTacToeRollout.get().run(node.board, node.xTurn, node.result, rules, random);
+	}
+
+	/**
+	 * Gives the node a child for every move, leaving out moves that lead
+	 * to the same position as a sibling's, in a random order. Children
+	 * already in the graph are linked to instead of being created again.
+	 */
+	private void expand(Node node, TicTacToeRandom random) {
+		int rows = board.length, columns = board[0].length, count = 0;
+		for (int i = 0; i < rows; i++)
+			System.arraycopy(node.board[i], 0, board[i], 0, columns);
+		Node[] children = new Node[node.emptyCells];
+		short[] moves = new short[node.emptyCells];
+
+		for (int i = 0; i < rows; i++)
+			for (int a = 0; a < columns; a++) {
+				if (board[i][a] != ' ')
+					continue;
+				board[i][a] = node.xTurn ? 'X':'O';
+				long key = key(TicTacToeSymmetry.canonicalHash(board), !node.xTurn);
+				Node child = positions.get(key);
+				boolean sibling = false;
+				if (child == null) {
+					child = new Node(board, !node.xTurn, rules.gameResult(board, i, a), node.emptyCells - 1);
+					positions.put(key, child);
+				}
+				else {
+					for (int b = 0; b < count && !sibling; b++)
+						sibling = children[b] == child;
+					if (!sibling) {
+						transpositions++;
+						trialsReused += child.totalTrials;
+					}
+				}
+				board[i][a] = ' ';
+				if (!sibling) {
+					children[count] = child;
+					moves[count++] = (short)(i * columns + a);
+				}
+			}
+
+		// Shuffle the children so that ties between them are broken randomly
+		for (int i = count - 1; i > 0; i--) {
+			int swap = random.nextInt(i + 1);
+			Node child = children[i];
+			children[i] = children[swap];
+			children[swap] = child;
+			short move = moves[i];
+			moves[i] = moves[swap];
+			moves[swap] = move;
+		}
+		node.moves = Arrays.copyOf(moves, count);
+		node.children = Arrays.copyOf(children, count);
+	}
+
+	/**
+	 * This function backpropogates a simulation result to
+	 * the first depth nodes of the current path
+	 *
+	 * @param depth  The number of nodes on the path
+	 * @param result The result of the simulation
+	 */
+	private void backPropogate(int depth, int result) {
+		for (int i = 0; i < depth; i++) {
+			Node node = path[i];
+			if ((result > 0 && node.xTurn) || (result < 0 && !node.xTurn))
+				node.hits++;
+			else if (result != 0)
+				node.misses++;
+			node.totalTrials++;
+		}
+	}
+
+	/**
+	 * Returns the move coords, on the game's board, of the root's
+	 * child with the most trials, like TicTacToePlus.getBestMove
+	 */
+	public int[] getBestMove() {
+		int rows = board.length, columns = board[0].length, best = -1, mostTrials = 0;
+		for (int i = 0; root.children != null && i < root.children.length; i++)
+			if (root.children[i].totalTrials > mostTrials) {
+				mostTrials = root.children[i].totalTrials;
+				best = i;
+			}
+		if (best == -1)
+			return new int[2];
+		int cell = TicTacToeSymmetry.transformCell(rootSymmetry, root.moves[best], rows, columns);
+		return new int[] {cell / columns, cell % columns};
+	}
+
+	/**
+	 * Returns how many more trials the root's most tried child has than
+	 * the second most tried child, like TicTacToePlus.leaderMargin
+	 */
+	public int leaderMargin() {
+		int most = 0, second = 0;
+		for (int i = 0; root.children != null && i < root.children.length; i++)
+			if (root.children[i].totalTrials > most) {
+				second = most;
+				most = root.children[i].totalTrials;
+			}
+			else if (root.children[i].totalTrials > second)
+				second = root.children[i].totalTrials;
+		return most - second;
+	}
+}
@@ -0,0 +1,417 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * This class acts as a single Monte Carlo Tic Tac Toe Node.
+ * To understand this better, look up Monte Carlo Tree Search
+ * on Wikipedia
+ *
+ * Games with other boards reuse the search by overriding newChildren
+ * and playout, keeping their own position instead of board (see
+ * TicTacToeUltimateNode).
+ *
+ * @author Ofek Gila
+ * @since September 3rd, 2015
+ */
+class TicTacToeMCTSNode extends TicTacToeMCTSStatistics {
+	/**
+	 * The node's position, or null for subclasses that keep their own
+	 */
+	public char[][] board;
+	/**
+	 * The same position as board, as bitboards for the hot path
+	 * when the game is 3x3 Tic Tac Toe
+	 */
+	public int xBits, oBits;
+	public boolean bitboard;
+	/**
+	 * The result of the game on this node's board, and the number
+	 * of empty cells left, so that the game is over if either the
+	 * result is not 0 or there are no empty cells
+	 */
+	public int result, emptyCells;
+	public boolean xTurn;
+	public TicTacToeMCTSNode parent;
+	public int[] lastMove;
+	public double expansionConstant;
+	/**
+	 * The rules of the node's game, which its whole tree shares
+	 */
+	public final TicTacToeRules rules;
+	/**
+	 * The node's trials, which are the node itself unless its tree is
+	 * padded (see padStatistics). They are only ever read through stats,
+	 * never through the node's own fields.
+	 */
+	public TicTacToeMCTSStatistics stats = this;
+	public volatile TicTacToeMCTSNode[] children;
+	/**
+	 * The snapshot the node was read from and its index there, so that
+	 * its children are only read once they are needed, or null
+	 */
+	TicTacToeTreeSnapshot snapshot;
+	int snapshotIndex;
+
+	/**
+	 * The counters are updated through VarHandles, since an updater of
+	 * TicTacToeMCTSStatistics checks the class of every node it is passed,
+	 * which slowed searches down by about a fifth
+	 */
+	private static final VarHandle HITS, MISSES, TOTAL_TRIALS, VIRTUAL_LOSSES;
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			HITS = lookup.findVarHandle(TicTacToeMCTSStatistics.class, "hits", int.class);
+			MISSES = lookup.findVarHandle(TicTacToeMCTSStatistics.class, "misses", int.class);
+			TOTAL_TRIALS = lookup.findVarHandle(TicTacToeMCTSStatistics.class, "totalTrials", int.class);
+			VIRTUAL_LOSSES = lookup.findVarHandle(TicTacToeMCTSStatistics.class, "virtualLosses", int.class);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	private static final AtomicReferenceFieldUpdater<TicTacToeMCTSNode, TicTacToeMCTSNode[]> CHILDREN = AtomicReferenceFieldUpdater.newUpdater(TicTacToeMCTSNode.class, TicTacToeMCTSNode[].class, "children");
+
+	TicTacToeMCTSNode(char[][] board, boolean xTurn, TicTacToeMCTSNode parent, int[] lastMove, double expansionConstant, TicTacToeRules rules) {
+		this(xTurn, parent, lastMove, expansionConstant, rules);
+		this.board = new char[board.length][board[0].length];
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < board[i].length; a++)
+				if ((this.board[i][a] = board[i][a]) == ' ')
+					emptyCells++;
+
+		bitboard = rules.bitboard(board);
+		if (bitboard) {
+			xBits = TicTacToeBitboard.bits(board, 'X');
+			oBits = TicTacToeBitboard.bits(board, 'O');
+			result = rules.gameResult(xBits, oBits);
+		}
+		// Only the last move can have won the game
+		else if (lastMove != null)
+			result = rules.gameResult(this.board, lastMove[0], lastMove[1]);
+		else result = rules.gameResult(this.board);
+	}
+
+	/**
+	 * Creates a node for a subclass that keeps its own position, which
+	 * has to set the result and the number of moves left (as emptyCells,
+	 * so that the game is over once it is 0) itself
+	 */
+	protected TicTacToeMCTSNode(boolean xTurn, TicTacToeMCTSNode parent, int[] lastMove, double expansionConstant, TicTacToeRules rules) {
+		if (parent != null && parent.stats != parent)
+			stats = new TicTacToeMCTSStatistics.Padded();
+		this.rules = rules;
+		this.xTurn = xTurn;
+		this.parent = parent;
+		this.lastMove = lastMove;
+		this.expansionConstant = expansionConstant;
+	}
+
+	/**
+	 * Copies a node's position and statistics, sharing its board, which
+	 * no node changes once it is made
+	 */
+	private TicTacToeMCTSNode(TicTacToeMCTSNode node, TicTacToeMCTSNode parent) {
+		this(node.xTurn, parent, node.lastMove, node.expansionConstant, node.rules);
+		board = node.board;
+		xBits = node.xBits;
+		oBits = node.oBits;
+		bitboard = node.bitboard;
+		result = node.result;
+		emptyCells = node.emptyCells;
+		stats.hits = node.stats.hits;
+		stats.misses = node.stats.misses;
+		stats.totalTrials = node.stats.totalTrials;
+		snapshot = node.snapshot;
+		snapshotIndex = node.snapshotIndex;
+	}
+
+	/**
+	 * Returns a deep copy of the node's tree, which can be searched
+	 * without changing this one. Children still in a snapshot are left
+	 * there, to be read by the copy when it needs them.
+	 *
+	 * @param  parent The parent of the copy
+	 * @return        The copy
+	 */
+	TicTacToeMCTSNode copy(TicTacToeMCTSNode parent) {
+		TicTacToeMCTSNode copy = new TicTacToeMCTSNode(this, parent);
+		TicTacToeMCTSNode[] children = this.children;
+		if (children != null) {
+			TicTacToeMCTSNode[] copies = new TicTacToeMCTSNode[children.length];
+			for (int i = 0; i < children.length; i++)
+				copies[i] = children[i].copy(copy);
+			copy.children = copies;
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns the number of nodes in the node's tree, not counting
+	 * children still in a snapshot
+	 */
+	long size() {
+		long size = 1;
+		TicTacToeMCTSNode[] children = this.children;
+		if (children != null)
+			for (int i = 0; i < children.length; i++)
+				size += children[i].size();
+		return size;
+	}
+
+	/**
+	 * Pads the node's statistics, and so those of every child made from
+	 * now on, for a tree that many threads are about to search. Nodes
+	 * that are already in the tree keep theirs. It must not be called
+	 * while any thread is searching the tree.
+	 */
+	void padStatistics() {
+		if (stats != this)
+			return;
+		TicTacToeMCTSStatistics padded = new TicTacToeMCTSStatistics.Padded();
+		padded.hits = stats.hits;
+		padded.misses = stats.misses;
+		padded.totalTrials = stats.totalTrials;
+		stats = padded;
+	}
+
+	/**
+	 * Evaluates the child's potential
+	 * @param  child The child node to evaluate
+	 * @return       The evaluated potential
+	 */
+	private double childPotential(TicTacToeMCTSNode child) {
+		// This formula can be found on Wikipedia, with virtual losses counted as losses
+		TicTacToeMCTSStatistics stats = child.stats;
+		int virtualLosses = stats.virtualLosses;
+		double w = stats.misses - stats.hits - virtualLosses, n = stats.totalTrials + virtualLosses;
+		return w / n + expansionConstant * Math.sqrt(Math.log(Math.max(this.stats.totalTrials, 1)) / n);
+	}
+
+	/**
+	 * Choose a child, run a simulation if needed, and then 
+	 * backpropogate the results, with the current thread's random numbers
+	 */
+	public void chooseChild() {
+		chooseChild(0, TicTacToeRandom.current());
+	}
+
+	/**
+	 * Choose a child like chooseChild(), with the passed random numbers,
+	 * so that the same seed always searches the tree the same way
+	 *
+	 * @param random The random numbers of the searching thread
+	 */
+	public void chooseChild(TicTacToeRandom random) {
+		chooseChild(0, random);
+	}
+
+	/**
+	 * Choose a child like chooseChild(random), adding virtual losses to
+	 * every node picked on the way down until its trial is backpropogated.
+	 * This is safe to call from many threads on the same tree, as long as
+	 * each one passes its own random numbers.
+	 *
+	 * @param virtualLoss The number of virtual losses to add, 0 for none
+	 * @param random      The random numbers of the searching thread
+	 */
+	public void chooseChild(int virtualLoss, TicTacToeRandom random) {
+		// One trial in TicTacToeMetrics.sampleEvery times its phases, the rest don't read the clock.
+		// The sampling doesn't draw from random, so that turning metrics on doesn't change the search.
+		if (!TicTacToeMetrics.enabled || ThreadLocalRandom.current().nextInt(TicTacToeMetrics.sampleEvery) != 0)
+			chooseChild(virtualLoss, random, null);
+		else {
+			long[] sample = new long[TicTacToeMetrics.SAMPLE_LENGTH];
+			chooseChild(virtualLoss, random, sample);
+			TicTacToeMetrics.recordTrial(sample);
+		}
+	}
+
+	/**
+	 * Choose a child like chooseChild(virtualLoss, random), adding the time
+	 * of each phase of the trial and its depth to sample if it isn't null
+	 *
+	 * @param virtualLoss The number of virtual losses to add, 0 for none
+	 * @param random      The random numbers of the searching thread
+	 * @param sample      The trial's phase times, indexed as in TicTacToeMetrics, or null
+	 */
+	private void chooseChild(int virtualLoss, TicTacToeRandom random, long[] sample) {
+		long start = sample == null ? 0:System.nanoTime();
+		if (sample != null)
+			sample[TicTacToeMetrics.DEPTH]++;
+		// If the node's board represents a completed game, backpropogate the results
+		if (result != 0 || emptyCells == 0) {
+			backPropogate(result);
+			if (sample != null)
+				sample[TicTacToeMetrics.BACKPROPAGATION] += System.nanoTime() - start;
+		}
+		else {
+			TicTacToeMCTSNode[] children = expand(random);
+			if (sample != null) {
+				long now = System.nanoTime();
+				sample[TicTacToeMetrics.EXPANSION] += now - start;
+				start = now;
+			}
+			// Pick a random unexplored child in one pass (reservoir sampling),
+			// skipping the ones another thread is already simulating
+			int countUnexplored = 0;
+			TicTacToeMCTSNode unexplored = null;
+			for (int i = 0; i < children.length; i++)
+				if (children[i].stats.totalTrials == 0 && children[i].stats.virtualLosses == 0 && random.nextInt(++countUnexplored) == 0)
+					unexplored = children[i];
+			// If the node has any unexplored children, run a simulation for one of them
+			if (unexplored != null) {
+				if (sample != null)
+					sample[TicTacToeMetrics.SELECTION] += System.nanoTime() - start;
+				if (virtualLoss == 0)
+					unexplored.runSimulation(random, sample);
+				else {
+					VIRTUAL_LOSSES.getAndAdd(unexplored.stats, virtualLoss);
+					try {
+						unexplored.runSimulation(random, sample);
+					}
+					finally {
+						VIRTUAL_LOSSES.getAndAdd(unexplored.stats, -virtualLoss);
+					}
+				}
+			}
+			// If all the Node's children are explored (or being simulated), call this function in the child
+			// with the best potential (look up on Wikipedia to understand potential)
+			else {
+				TicTacToeMCTSNode bestChild = null;
+				double bestPotential = Double.NEGATIVE_INFINITY, potential;
+				for (int i = 0; i < children.length; i++) {
+					potential = childPotential(children[i]);
+					if (potential > bestPotential) {
+						bestPotential = potential;
+						bestChild = children[i];
+					}
+				}
+				if (sample != null)
+					sample[TicTacToeMetrics.SELECTION] += System.nanoTime() - start;
+				if (virtualLoss == 0)
+					bestChild.chooseChild(0, random, sample);
+				else {
+					VIRTUAL_LOSSES.getAndAdd(bestChild.stats, virtualLoss);
+					try {
+						bestChild.chooseChild(virtualLoss, random, sample);
+					}
+					finally {
+						VIRTUAL_LOSSES.getAndAdd(bestChild.stats, -virtualLoss);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the node's children, reading them from the node's snapshot
+	 * if it was read from one and they haven't been read yet, or null if
+	 * it has no children
+	 */
+	TicTacToeMCTSNode[] children() {
+		TicTacToeMCTSNode[] children = this.children;
+		if (children != null || snapshot == null)
+			return children;
+		children = snapshot.children(this);
+		if (children == null || CHILDREN.compareAndSet(this, null, children))
+			return children;
+		return this.children;
+	}
+
+	/**
+	 * Returns the node's children, giving it children if it doesn't have
+	 * any yet. If two threads expand the node at the same time, only one
+	 * set of children is kept and both threads use it.
+	 */
+	private TicTacToeMCTSNode[] expand(TicTacToeRandom random) {
+		TicTacToeMCTSNode[] children = children();
+		if (children != null)
+			return children;
+
+		children = newChildren(random);
+		if (CHILDREN.compareAndSet(this, null, children)) {
+			if (TicTacToeMetrics.enabled)
+				TicTacToeMetrics.nodesCreated.add(children.length);
+			return children;
+		}
+		return this.children;
+	}
+
+	/**
+	 * Returns a new child for every move, in a random order so that
+	 * ties between them are broken randomly. It must not change the
+	 * node, since other threads may be reading it.
+	 *
+	 * @param  random The random numbers of the searching thread
+	 * @return        The children
+	 */
+	protected TicTacToeMCTSNode[] newChildren(TicTacToeRandom random) {
+		// getChildrenNodes plays on the board it is passed, so other threads must not see it
+		char[][] boardCopy = new char[board.length][];
+		for (int i = 0; i < board.length; i++)
+			boardCopy[i] = board[i].clone();
+		return TicTacToePlus.getChildrenNodes(boardCopy, xTurn, this, random);
+	}
+
+	/**
+	 * This function backpropogates a simulation result
+	 * all the way to the root node.
+	 * @param result The result of the simulation
+	 */
+	public void backPropogate(int result) {
+		if ((result > 0 && xTurn) || (result < 0 && !xTurn))
+			HITS.getAndAdd(stats, 1);
+		else if (result != 0)
+			MISSES.getAndAdd(stats, 1);
+		TOTAL_TRIALS.getAndAdd(stats, 1);
+		if (parent != null)
+			parent.backPropogate(result);
+	}
+
+	/**
+	 * Run a single simulation for this node. Note that these simulations
+	 * are not completely random since the rules' getRandomMove automatically
+	 * returns winning or losing moves. The playout runs on a copy of the bitboards,
+	 * or on the thread's TicTacToeRollout scratch board, so nothing is allocated.
+	 *
+	 * @see TicTacToeBitboard#getRandomCell
+	 */
+	public void runSimulation() {
+		runSimulation(TicTacToeRandom.current(), null);
+	}
+
+	/**
+	 * Runs a simulation like runSimulation(), with the passed random
+	 * numbers, adding the time of the playout and of its backpropagation
+	 * to sample if it isn't null
+	 */
+	private void runSimulation(TicTacToeRandom random, long[] sample) {
+		long start = sample == null ? 0:System.nanoTime();
+		int result = playout(random);
+		if (sample == null) {
+			backPropogate(result);
+			return;
+		}
+		long now = System.nanoTime();
+		sample[TicTacToeMetrics.SIMULATION] += now - start;
+		// Backpropogate the result of the simulation
+		backPropogate(result);
+		sample[TicTacToeMetrics.BACKPROPAGATION] += System.nanoTime() - now;
+	}
+
+	/**
+	 * Plays random moves from the node's position until the game ends
+	 *
+	 * @param  random The random numbers of the searching thread
+	 * @return        The result of the game at the end of the playout
+	 */
+	protected int playout(TicTacToeRandom random) {
+		// Boards that aren't 3x3 are played on the thread's scratch board
+		if (!bitboard)
+			return TicTacToeRollout.get().run(board, xTurn, result, rules, random);
+		return rules.playout(xBits, oBits, xTurn, random);
+	}
+}
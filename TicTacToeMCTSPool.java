@@ -0,0 +1,332 @@
+import java.util.Arrays;
+
+/**
+ * A Monte Carlo tree stored as parallel arrays of primitives instead
+ * of TicTacToeMCTSNode objects. A node is an int index into the arrays,
+ * and a node's children sit next to each other, starting at firstChild.
+ * Nodes don't keep a copy of their board: it is rebuilt by playing the
+ * moves on the way down from the root, which chooseChild does anyway.
+ *
+ * The search behaves like TicTacToeMCTSNode's: chooseChild explores a
+ * random unexplored child or descends into the child with the best
+ * potential, and backPropogate adds a result to every node up to the
+ * root. Unlike TicTacToeMCTSNode, a pool must only be searched by one
+ * thread at a time.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeMCTSPool {
+
+	public double expansionConstant;
+	public final TicTacToeRules rules;
+
+	private int[] parent, firstChild, hits, misses, totalTrials;
+	private short[] childCount, move;
+	private int size;
+
+	/**
+	 * The position at the root of the tree
+	 */
+	private char[][] rootBoard;
+	private boolean rootXTurn;
+	private int rootIndex, rootResult;
+	/**
+	 * Maps a cell of rootBoard to the same cell of the game's board
+	 */
+	private int rootSymmetry;
+
+	/**
+	 * The board the moves are played on during chooseChild
+	 */
+	private char[][] board;
+	private long[] childHashes;
+
+	public TicTacToeMCTSPool(char[][] board, boolean xTurn, double expansionConstant, TicTacToeRules rules) {
+		this.expansionConstant = expansionConstant;
+		this.rules = rules;
+		int capacity = 1024;
+		parent = new int[capacity];
+		firstChild = new int[capacity];
+		hits = new int[capacity];
+		misses = new int[capacity];
+		totalTrials = new int[capacity];
+		childCount = new short[capacity];
+		move = new short[capacity];
+		reset(board, xTurn);
+	}
+
+	/**
+	 * Throws away the tree and starts a new one at the passed position
+	 */
+	public void reset(char[][] board, boolean xTurn) {
+		rootBoard = new char[board.length][];
+		this.board = new char[board.length][];
+		for (int i = 0; i < board.length; i++) {
+			rootBoard[i] = board[i].clone();
+			this.board[i] = board[i].clone();
+		}
+		childHashes = new long[board.length * board[0].length];
+		rootXTurn = xTurn;
+		rootResult = rules.gameResult(board);
+		rootSymmetry = 0;
+		size = 0;
+		rootIndex = newNode(-1, -1);
+	}
+
+	/**
+	 * Returns the number of nodes in the pool
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of trials run from the root
+	 */
+	public int rootTrials() {
+		return totalTrials[rootIndex];
+	}
+
+	/**
+	 * Returns the number of bytes each node takes up in the arrays
+	 */
+	public static int bytesPerNode() {
+		return 5 * Integer.BYTES + 2 * Short.BYTES;
+	}
+
+	private int newNode(int parentIndex, int cell) {
+		if (size == parent.length)
+			grow();
+		parent[size] = parentIndex;
+		firstChild[size] = -1;
+		hits[size] = misses[size] = totalTrials[size] = 0;
+		childCount[size] = 0;
+		move[size] = (short)cell;
+		return size++;
+	}
+
+	private void grow() {
+		int capacity = parent.length * 2;
+		parent = Arrays.copyOf(parent, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		hits = Arrays.copyOf(hits, capacity);
+		misses = Arrays.copyOf(misses, capacity);
+		totalTrials = Arrays.copyOf(totalTrials, capacity);
+		childCount = Arrays.copyOf(childCount, capacity);
+		move = Arrays.copyOf(move, capacity);
+	}
+
+	/**
+	 * Choose a child, run a simulation if needed, and then
+	 * backpropogate the results, starting from the root, with the
+	 * current thread's random numbers
+	 */
+	public void chooseChild() {
+		chooseChild(TicTacToeRandom.current());
+	}
+
+	/**
+	 * Choose a child like chooseChild(), with the passed random numbers,
+	 * so that the same seed always searches the pool the same way
+	 */
+	public void chooseChild(TicTacToeRandom random) {
+		int rows = rootBoard.length, columns = rootBoard[0].length, emptyCells = 0;
+		for (int i = 0; i < rows; i++) {
+			System.arraycopy(rootBoard[i], 0, board[i], 0, columns);
+			for (int a = 0; a < columns; a++)
+				if (board[i][a] == ' ')
+					emptyCells++;
+		}
+		int node = rootIndex, result = rootResult;
+		boolean xTurn = rootXTurn;
+
+		while (true) {
+			// If the node's board represents a completed game, backpropogate the results
+			if (result != 0 || emptyCells == 0) {
+				backPropogate(node, xTurn, result);
+				return;
+			}
+			if (firstChild[node] == -1)
+				expand(node, xTurn, random);
+
+			int first = firstChild[node], last = first + childCount[node];
+			int countUnexplored = 0, unexplored = -1;
+			for (int child = first; child < last; child++)
+				if (totalTrials[child] == 0 && random.nextInt(++countUnexplored) == 0)
+					unexplored = child;
+
+			// Run a simulation for a random unexplored child
+			if (unexplored != -1) {
+				int x = move[unexplored] / columns, y = move[unexplored] % columns;
+				board[x][y] = xTurn ? 'X':'O';
+				result = rules.gameResult(board, x, y);
+				if (result == 0 && emptyCells > 1)
+					result = playout(!xTurn, result, random);
+				backPropogate(unexplored, !xTurn, result);
+				return;
+			}
+
+			// Otherwise descend into the child with the best potential
+			int bestChild = -1;
+			double bestPotential = Double.NEGATIVE_INFINITY, logTrials = Math.log(Math.max(totalTrials[node], 1));
+			for (int child = first; child < last; child++) {
+				double w = misses[child] - hits[child], n = totalTrials[child];
+				double potential = w / n + expansionConstant * Math.sqrt(logTrials / n);
+				if (potential > bestPotential) {
+					bestPotential = potential;
+					bestChild = child;
+				}
+			}
+			int x = move[bestChild] / columns, y = move[bestChild] % columns;
+			board[x][y] = xTurn ? 'X':'O';
+			result = rules.gameResult(board, x, y);
+			emptyCells--;
+			xTurn = !xTurn;
+			node = bestChild;
+		}
+	}
+
+	private int playout(boolean xTurn, int result, TicTacToeRandom random) {
+		if (rules.bitboard(board))
+			return rules.playout(TicTacToeBitboard.bits(board, 'X'), TicTacToeBitboard.bits(board, 'O'), xTurn, random);
+		return TicTacToeRollout.get().run(board, xTurn, result, rules, random);
+	}
+
+	/**
+	 * Gives the node a child for every move, leaving out moves that lead
+	 * to a position symmetric to a sibling's (like getChildrenNodes), in
+	 * a random order
+	 */
+	private void expand(int node, boolean xTurn, TicTacToeRandom random) {
+		int rows = board.length, columns = board[0].length;
+		long[] hashes = childHashes;
+		int first = size, count = 0;
+		for (int i = 0; i < rows; i++)
+			for (int a = 0; a < columns; a++) {
+				if (board[i][a] != ' ')
+					continue;
+				board[i][a] = xTurn ? 'X':'O';
+				long hash = TicTacToeSymmetry.canonicalHash(board);
+				board[i][a] = ' ';
+
+				boolean symmetric = false;
+				for (int b = 0; b < count && !symmetric; b++)
+					symmetric = hashes[b] == hash;
+				if (!symmetric) {
+					hashes[count++] = hash;
+					newNode(node, i * columns + a);
+				}
+			}
+
+		// Shuffle the children so that ties between them are broken randomly
+		for (int child = count - 1; child > 0; child--) {
+			int swap = random.nextInt(child + 1);
+			short cell = move[first + child];
+			move[first + child] = move[first + swap];
+			move[first + swap] = cell;
+		}
+		firstChild[node] = first;
+		childCount[node] = (short)count;
+	}
+
+	/**
+	 * This function backpropogates a simulation result
+	 * all the way to the root node.
+	 *
+	 * @param node   The node the result is for
+	 * @param xTurn  Whether or not it is X's turn at that node
+	 * @param result The result of the simulation
+	 */
+	public void backPropogate(int node, boolean xTurn, int result) {
+		for (; node != -1; node = parent[node], xTurn = !xTurn) {
+			if ((result > 0 && xTurn) || (result < 0 && !xTurn))
+				hits[node]++;
+			else if (result != 0)
+				misses[node]++;
+			totalTrials[node]++;
+		}
+	}
+
+	/**
+	 * Returns the move coords, on the game's board, of the root's child
+	 * with the most trials, like TicTacToePlus.getBestMove
+	 */
+	public int[] getBestMove() {
+		int rows = rootBoard.length, columns = rootBoard[0].length, best = -1, mostTrials = 0;
+		for (int child = firstChild[rootIndex]; child != -1 && child < firstChild[rootIndex] + childCount[rootIndex]; child++)
+			if (totalTrials[child] > mostTrials) {
+				mostTrials = totalTrials[child];
+				best = child;
+			}
+		if (best == -1)
+			return new int[2];
+		int cell = TicTacToeSymmetry.transformCell(rootSymmetry, move[best], rows, columns);
+		return new int[] {cell / columns, cell % columns};
+	}
+
+	/**
+	 * Returns how many more trials the root's most tried child has than
+	 * the second most tried child, like TicTacToePlus.leaderMargin
+	 */
+	public int leaderMargin() {
+		int most = 0, second = 0, first = firstChild[rootIndex];
+		for (int child = first; first != -1 && child < first + childCount[rootIndex]; child++)
+			if (totalTrials[child] > most) {
+				second = most;
+				most = totalTrials[child];
+			}
+			else if (totalTrials[child] > second)
+				second = totalTrials[child];
+		return most - second;
+	}
+
+	/**
+	 * Moves the root to the child that played x, y, keeping its subtree.
+	 * If expand kept a symmetric image of the move instead, the root
+	 * moves to that child, and its moves are mapped onto the game's board
+	 * from then on. If there is no such child the tree is reset to the
+	 * new position. The nodes outside of the subtree stay in the pool
+	 * until it is reset.
+	 *
+	 * @param board The board after the move
+	 * @param xTurn The turn after the move
+	 * @param x     The x coord played
+	 * @param y     The y coord played
+	 */
+	public void nextRoot(char[][] board, boolean xTurn, int x, int y) {
+		int rows = board.length, columns = board[0].length, first = firstChild[rootIndex];
+		// The move played, on rootBoard
+		int cell = TicTacToeSymmetry.transformCell(TicTacToeSymmetry.inverse(rootSymmetry), x * columns + y, rows, columns);
+		for (int child = first; first != -1 && child < first + childCount[rootIndex]; child++)
+			if (move[child] == cell) {
+				moveRoot(child, xTurn);
+				return;
+			}
+
+		int sym = TicTacToeSymmetry.canonicalSymmetry(board);
+		long hash = TicTacToeSymmetry.hash(board, sym);
+		char color = board[x][y];
+		for (int child = first; first != -1 && child < first + childCount[rootIndex]; child++) {
+			int childX = move[child] / columns, childY = move[child] % columns;
+			rootBoard[childX][childY] = color;
+			int childSym = TicTacToeSymmetry.canonicalSymmetry(rootBoard);
+			boolean symmetric = TicTacToeSymmetry.hash(rootBoard, childSym) == hash;
+			rootBoard[childX][childY] = ' ';
+			if (symmetric) {
+				rootSymmetry = TicTacToeSymmetry.compose(childSym, TicTacToeSymmetry.inverse(sym));
+				moveRoot(child, xTurn);
+				return;
+			}
+		}
+		reset(board, xTurn);
+	}
+
+	private void moveRoot(int child, boolean xTurn) {
+		int columns = rootBoard[0].length, x = move[child] / columns, y = move[child] % columns;
+		rootIndex = child;
+		parent[child] = -1;
+		rootBoard[x][y] = rootXTurn ? 'X':'O';
+		rootXTurn = xTurn;
+		rootResult = rules.gameResult(rootBoard, x, y);
+	}
+}
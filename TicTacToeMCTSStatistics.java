@@ -0,0 +1,32 @@
+/**
+ * The trials of a TicTacToeMCTSNode. They are updated atomically, so
+ * that many threads can search the same tree, and sit next to each
+ * other since a backpropagation writes all of them.
+ *
+ * A node is its own statistics, so that reading them costs no more than
+ * reading the node. A tree that many threads search gives its nodes
+ * Padded statistics of their own instead (see padStatistics in
+ * TicTacToeMCTSNode).
+ *
+ * @since October 17th, 2026
+ */
+class TicTacToeMCTSStatistics {
+
+	public volatile int hits, misses, totalTrials;
+	/**
+	 * The number of threads currently searching below the node. While
+	 * they are, each one counts as an extra lost trial, so that other
+	 * threads spread out to other branches.
+	 */
+	public volatile int virtualLosses;
+
+	/**
+	 * Statistics followed by a cache line of padding, so that no two
+	 * nodes' counters share a cache line wherever the JVM puts them, and
+	 * threads backpropagating through different siblings don't invalidate
+	 * each other's caches. It costs 96 bytes a node.
+	 */
+	static final class Padded extends TicTacToeMCTSStatistics {
+		long p0, p1, p2, p3, p4, p5, p6, p7;
+	}
+}
@@ -0,0 +1,299 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Counters and histograms of the ai's searches, for every game in the
+ * process, cheap enough to leave on:
+ *
+ *   - Counters are LongAdders, so threads rarely contend on them.
+ *   - The phases of a trial (selection, expansion, simulation and
+ *     backpropagation) and its depth are only timed for one trial in
+ *     sampleEvery, so the other trials never read the clock.
+ *   - The latency and allocation of a move are recorded once per move.
+ *   - Every treeSizeEvery moves, the tree is walked to count its nodes
+ *     on a thread of its own, so no move waits for the walk.
+ *
+ * The numbers are published as the MXBean TicTacToe:type=Search, which
+ * jconsole or any JMX client can read, and every move is a
+ * tictactoe.Move JFR event, which costs nothing unless a recording has
+ * it enabled:
+ *
+ *     java -XX:StartFlightRecording=filename=search.jfr TicTacToePlus
+ *     jfr print --events tictactoe.Move search.jfr
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeMetrics {
+
+	/**
+	 * When false nothing is recorded
+	 */
+	public static volatile boolean enabled = true;
+	public static int sampleEvery = 64, treeSizeEvery = 64;
+
+	public static final LongAdder moves = new LongAdder(), playouts = new LongAdder(), searchNanos = new LongAdder(), nodesCreated = new LongAdder();
+	public static final LongAdder rootReused = new LongAdder(), rootReusedSymmetric = new LongAdder(), rootDiscarded = new LongAdder();
+	/**
+	 * The sums of the sampled trials' phases, in nanoseconds, and depths
+	 */
+	public static final LongAdder sampledTrials = new LongAdder(), selectionNanos = new LongAdder(), expansionNanos = new LongAdder(),
+		simulationNanos = new LongAdder(), backpropagationNanos = new LongAdder(), depths = new LongAdder();
+	public static final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * The histograms are recorded without a lock, so that moves don't
+	 * wait on each other (or pin the carriers of virtual threads)
+	 */
+	private static final TicTacToeHistogram.Concurrent moveLatency = new TicTacToeHistogram.Concurrent(), moveAllocation = new TicTacToeHistogram.Concurrent(),
+		treeSize = new TicTacToeHistogram.Concurrent();
+
+	/**
+	 * The indices of a trial sample's phases, and its length
+	 */
+	public static final int SELECTION = 0, EXPANSION = 1, SIMULATION = 2, BACKPROPAGATION = 3, DEPTH = 4, SAMPLE_LENGTH = 5;
+
+	/**
+	 * Counts the nodes of one tree at a time. A tree sampled while
+	 * another is still being counted isn't counted.
+	 */
+	private static final ThreadPoolExecutor treeCounter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), r -> {
+		Thread thread = new Thread(r, "TicTacToe tree size");
+		thread.setDaemon(true);
+		return thread;
+	}, new ThreadPoolExecutor.DiscardPolicy());
+
+	private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	static {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new Search(), new ObjectName("TicTacToe:type=Search"));
+		}
+		catch (Exception e) {
+			// Already registered by another class loader, or no JMX; the counters still work
+		}
+	}
+
+	/**
+	 * Returns the bytes the current thread has allocated so far
+	 */
+	public static long allocatedBytes() {
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Records a sampled trial
+	 *
+	 * @param sample The nanoseconds of each phase and the depth, indexed by SELECTION to DEPTH
+	 */
+	public static void recordTrial(long[] sample) {
+		sampledTrials.increment();
+		selectionNanos.add(sample[SELECTION]);
+		expansionNanos.add(sample[EXPANSION]);
+		simulationNanos.add(sample[SIMULATION]);
+		backpropagationNanos.add(sample[BACKPROPAGATION]);
+		depths.add(sample[DEPTH]);
+		maxDepth.accumulate(sample[DEPTH]);
+	}
+
+	/**
+	 * Records one of the ai's moves
+	 *
+	 * @param source         What picked the move: tablebase, forced, cache or search
+	 * @param nanos          How long the move took
+	 * @param bytes          The bytes the ai's thread allocated for it
+	 * @param trials         The trials searched for it
+	 * @param root           The game's tree after the search, or null if it has none,
+	 *                       which may still be searched while its nodes are counted
+	 * @param event          The move's JFR event, begun when the move started
+	 */
+	public static void recordMove(String source, long nanos, long bytes, long trials, TicTacToeMCTSNode root, MoveEvent event) {
+		moves.increment();
+		if (trials > 0)
+			searchNanos.add(nanos);
+		if (root != null && moves.sum() % treeSizeEvery == 0)
+			treeCounter.execute(() -> treeSize.record(root.size()));
+		moveLatency.record(nanos);
+		moveAllocation.record(bytes);
+
+		if (event.shouldCommit()) {
+			event.source = source;
+			event.trials = trials;
+			event.allocatedBytes = bytes;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Resets every counter and histogram
+	 */
+	public static void reset() {
+		LongAdder[] adders = {moves, playouts, searchNanos, nodesCreated, rootReused, rootReusedSymmetric, rootDiscarded,
+			sampledTrials, selectionNanos, expansionNanos, simulationNanos, backpropagationNanos, depths};
+		for (int i = 0; i < adders.length; i++)
+			adders[i].reset();
+		maxDepth.reset();
+		moveLatency.clear();
+		moveAllocation.clear();
+		treeSize.clear();
+	}
+
+	private static double mean(LongAdder sum, LongAdder count) {
+		long n = count.sum();
+		return n == 0 ? 0:(double)sum.sum() / n;
+	}
+
+	/**
+	 * Returns a line with the main statistics
+	 */
+	public static String summary() {
+		Search search = new Search();
+		return String.format("moves=%d playouts/s=%.0f reuse=%.3f depth mean=%.1f max=%d phases_ns select=%.0f expand=%.0f simulate=%.0f backprop=%.0f move_ms p50=%.2f p99=%.2f bytes/move=%.0f tree_nodes=%.0f",
+			search.getMoves(), search.getPlayoutsPerSecond(), search.getRootReuseRate(), search.getMeanDepth(), search.getMaxDepth(),
+			search.getMeanSelectionNanos(), search.getMeanExpansionNanos(), search.getMeanSimulationNanos(), search.getMeanBackpropagationNanos(),
+			search.getMoveLatencyP50Millis(), search.getMoveLatencyP99Millis(), search.getMeanAllocatedBytesPerMove(), search.getMeanTreeNodes());
+	}
+
+	/**
+	 * The attributes published through JMX
+	 */
+	public interface SearchMXBean {
+		long getMoves();
+		long getPlayouts();
+		double getPlayoutsPerSecond();
+		long getNodesCreated();
+		long getRootReused();
+		long getRootReusedSymmetric();
+		long getRootDiscarded();
+		double getRootReuseRate();
+		double getMeanDepth();
+		long getMaxDepth();
+		double getMeanSelectionNanos();
+		double getMeanExpansionNanos();
+		double getMeanSimulationNanos();
+		double getMeanBackpropagationNanos();
+		double getMoveLatencyP50Millis();
+		double getMoveLatencyP99Millis();
+		double getMoveLatencyMaxMillis();
+		double getMeanAllocatedBytesPerMove();
+		double getMeanTreeNodes();
+		void reset();
+	}
+
+	static class Search implements SearchMXBean {
+		public long getMoves() {
+			return moves.sum();
+		}
+
+		public long getPlayouts() {
+			return playouts.sum();
+		}
+
+		/**
+		 * The playouts per second of search, not of wall time
+		 */
+		public double getPlayoutsPerSecond() {
+			long nanos = searchNanos.sum();
+			return nanos == 0 ? 0:playouts.sum() / (nanos / 1e9);
+		}
+
+		public long getNodesCreated() {
+			return nodesCreated.sum();
+		}
+
+		public long getRootReused() {
+			return rootReused.sum();
+		}
+
+		public long getRootReusedSymmetric() {
+			return rootReusedSymmetric.sum();
+		}
+
+		public long getRootDiscarded() {
+			return rootDiscarded.sum();
+		}
+
+		public double getRootReuseRate() {
+			long reused = rootReused.sum() + rootReusedSymmetric.sum(), total = reused + rootDiscarded.sum();
+			return total == 0 ? 0:(double)reused / total;
+		}
+
+		public double getMeanDepth() {
+			return mean(depths, sampledTrials);
+		}
+
+		public long getMaxDepth() {
+			return maxDepth.get();
+		}
+
+		public double getMeanSelectionNanos() {
+			return mean(selectionNanos, sampledTrials);
+		}
+
+		public double getMeanExpansionNanos() {
+			return mean(expansionNanos, sampledTrials);
+		}
+
+		public double getMeanSimulationNanos() {
+			return mean(simulationNanos, sampledTrials);
+		}
+
+		public double getMeanBackpropagationNanos() {
+			return mean(backpropagationNanos, sampledTrials);
+		}
+
+		public double getMoveLatencyP50Millis() {
+			return moveLatency.snapshot().percentile(50) / 1e6;
+		}
+
+		public double getMoveLatencyP99Millis() {
+			return moveLatency.snapshot().percentile(99) / 1e6;
+		}
+
+		public double getMoveLatencyMaxMillis() {
+			return moveLatency.snapshot().max() / 1e6;
+		}
+
+		public double getMeanAllocatedBytesPerMove() {
+			return moveAllocation.snapshot().mean();
+		}
+
+		public double getMeanTreeNodes() {
+			return treeSize.snapshot().mean();
+		}
+
+		public void reset() {
+			TicTacToeMetrics.reset();
+		}
+	}
+
+	/**
+	 * A JFR event for each of the ai's moves, whose duration is the move's
+	 */
+	@Name("tictactoe.Move")
+	@Label("Tic Tac Toe Move")
+	@Category("Tic Tac Toe")
+	@Description("A move played by the ai")
+	public static class MoveEvent extends Event {
+		@Label("Source")
+		@Description("What picked the move: tablebase, forced, cache or search")
+		public String source;
+
+		@Label("Trials")
+		public long trials;
+
+		@Label("Allocated")
+		@DataAmount
+		public long allocatedBytes;
+	}
+}
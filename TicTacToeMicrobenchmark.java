@@ -0,0 +1,212 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.function.IntSupplier;
+
+/**
+ * Microbenchmarks of the engine's hot paths, each run under both the
+ * normal and Anti Tic Tac Toe rules. It works like a small JMH: every
+ * benchmark gets warmup iterations, then measured iterations of a fixed
+ * length, and results are consumed through a sink so that the JIT can't
+ * throw the work away. Each line reports the mean ops/s with its
+ * standard deviation across iterations, and the bytes allocated per op
+ * and per second, measured from the thread's allocation counter.
+ *
+ * Unlike JMH, every benchmark runs in the same JVM, so run a single
+ * benchmark with a filter when a number looks affected by the others:
+ *
+ *     java TicTacToeMicrobenchmark [filter] [iterationMillis]
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeMicrobenchmark {
+
+	public static final int warmupIterations = 5, measurementIterations = 5;
+
+	/**
+	 * Every result is added to sink, so none of them are dead code
+	 */
+	public static volatile int sink;
+
+	/**
+	 * A benchmark is a setup, run before every iteration with the
+	 * rules to play by, that returns the operation to time
+	 */
+	interface Benchmark {
+		IntSupplier setup(TicTacToeRules rules);
+	}
+
+	private static final ArrayList<String> names = new ArrayList<String>();
+	private static final ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+	private static void add(String name, Benchmark benchmark) {
+		names.add(name);
+		benchmarks.add(benchmark);
+	}
+
+	/**
+	 * The empty board, a board after three moves, and a full board
+	 */
+	private static char[][] emptyBoard() {
+		return board("   ", "   ", "   ");
+	}
+
+	private static char[][] openingBoard() {
+		return board("X  ", " O ", "  X");
+	}
+
+	private static char[][] fullBoard() {
+		return board("XOX", "XOO", "OXX");
+	}
+
+	private static char[][] board(String... rows) {
+		char[][] board = new char[rows.length][];
+		for (int i = 0; i < rows.length; i++)
+			board[i] = rows[i].toCharArray();
+		return board;
+	}
+
+	static {
+		add("gameResult", rules -> {
+			char[][] board = fullBoard();
+			return () -> rules.gameResult(board);
+		});
+		add("gameResult(x, y)", rules -> {
+			char[][] board = fullBoard();
+			return () -> rules.gameResult(board, 2, 2);
+		});
+		add("gameOver", rules -> {
+			char[][] board = openingBoard();
+			return () -> rules.gameOver(board) ? 1:0;
+		});
+		add("possibleMoves", rules -> {
+			char[][] board = openingBoard();
+			return () -> TicTacToePlus.possibleMoves(board).length;
+		});
+		// findBestMove goes through possibleMoves, while alternateFindBestMove
+		// scans the board. Both value the moves with searchValue, so after
+		// the first op they measure the move loop over a warm table.
+		add("findBestMove", rules -> {
+			TicTacToePlus TTT = new TicTacToePlus(0, 3, 3, rules);
+			char[][] board = openingBoard();
+			return () -> TTT.findBestMove(board, false)[0];
+		});
+		add("alternateFindBestMove", rules -> {
+			TicTacToePlus TTT = new TicTacToePlus(0, 3, 3, rules);
+			char[][] board = openingBoard();
+			return () -> TTT.alternateFindBestMove(board, false)[0];
+		});
+		add("getWinningMove", rules -> {
+			char[][] board = openingBoard();
+			return () -> rules.getWinningMove(board)[0];
+		});
+		add("getRandomMove", rules -> {
+			char[][] board = openingBoard();
+			TicTacToeRandom random = new TicTacToeRandom(1);
+			return () -> rules.getRandomMove(board, false, random)[0];
+		});
+		add("identicalBoards", rules -> {
+			char[][] board = openingBoard(), other = board("  X", " O ", "X  ");
+			return () -> TicTacToePlus.identicalBoards(board, other) ? 1:0;
+		});
+		add("getChildrenNodes", rules -> {
+			char[][] board = openingBoard();
+			TicTacToeMCTSNode parent = new TicTacToeMCTSNode(board, false, null, null, TicTacToePlus.expansionConstant, rules);
+			TicTacToeRandom random = new TicTacToeRandom(1);
+			return () -> TicTacToePlus.getChildrenNodes(board, false, parent, random).length;
+		});
+		add("runSimulation", rules -> {
+			TicTacToeMCTSNode node = new TicTacToeMCTSNode(emptyBoard(), true, null, null, TicTacToePlus.expansionConstant, rules);
+			return () -> {
+				node.runSimulation();
+				return node.stats.totalTrials;
+			};
+		});
+		add("chooseChild empty", rules -> {
+			TicTacToeMCTSNode root = new TicTacToeMCTSNode(emptyBoard(), true, null, null, TicTacToePlus.expansionConstant, rules);
+			return () -> {
+				root.chooseChild();
+				return root.stats.totalTrials;
+			};
+		});
+		add("chooseChild opening", rules -> {
+			TicTacToeMCTSNode root = new TicTacToeMCTSNode(openingBoard(), false, null, null, TicTacToePlus.expansionConstant, rules);
+			return () -> {
+				root.chooseChild();
+				return root.stats.totalTrials;
+			};
+		});
+	}
+
+	public static void main(String... pumpkins) {
+		String filter = pumpkins.length > 0 ? pumpkins[0]:"";
+		long iterationMillis = pumpkins.length > 1 ? Long.parseLong(pumpkins[1]):1000;
+		TicTacToeRules[] rules = {TicTacToeRules.standard, TicTacToeRules.of(3, true)};
+
+		System.out.println("benchmark\trules\tops/s\t+-\tbytes/op\tMB/s");
+		for (int b = 0; b < benchmarks.size(); b++) {
+			if (!names.get(b).contains(filter))
+				continue;
+			for (int r = 0; r < rules.length; r++) {
+				TicTacToePlus.transpositionTable.clear();
+				run(names.get(b), rules[r], benchmarks.get(b), iterationMillis);
+			}
+		}
+	}
+
+	/**
+	 * Runs the warmup and measured iterations of a benchmark and prints its line
+	 */
+	private static void run(String name, TicTacToeRules rules, Benchmark benchmark, long iterationMillis) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		for (int i = 0; i < warmupIterations; i++)
+			iteration(benchmark.setup(rules), iterationMillis, null);
+
+		double[] opsPerSecond = new double[measurementIterations];
+		long ops = 0, bytes = 0, nanos = 0;
+		for (int i = 0; i < measurementIterations; i++) {
+			IntSupplier op = benchmark.setup(rules);
+			long before = threads.getThreadAllocatedBytes(thread);
+			long[] result = new long[2];
+			iteration(op, iterationMillis, result);
+			bytes += threads.getThreadAllocatedBytes(thread) - before;
+			ops += result[0];
+			nanos += result[1];
+			opsPerSecond[i] = result[0] / (result[1] / 1e9);
+		}
+
+		double mean = 0, variance = 0;
+		for (int i = 0; i < opsPerSecond.length; i++)
+			mean += opsPerSecond[i] / opsPerSecond.length;
+		for (int i = 0; i < opsPerSecond.length; i++)
+			variance += (opsPerSecond[i] - mean) * (opsPerSecond[i] - mean) / Math.max(opsPerSecond.length - 1, 1);
+		System.out.printf("%s\t%s\t%.0f\t%.0f\t%.1f\t%.1f%n", name, rules.anti ? "anti":"normal", mean, Math.sqrt(variance),
+			(double)bytes / ops, bytes / (nanos / 1e9) / (1 << 20));
+	}
+
+	/**
+	 * Runs the op in batches until the iteration's time is up, storing
+	 * the number of ops and the nanoseconds they took in result. The
+	 * batches double in size so that reading the clock doesn't cost
+	 * much next to the ops themselves.
+	 */
+	private static void iteration(IntSupplier op, long iterationMillis, long[] result) {
+		long ops = 0, batch = 1, start = System.nanoTime(), end = start + iterationMillis * 1000000;
+		int sum = 0;
+		long now;
+		do {
+			for (long i = 0; i < batch; i++)
+				sum += op.getAsInt();
+			ops += batch;
+			if (batch < 1 << 16)
+				batch *= 2;
+			now = System.nanoTime();
+		}	while (now < end);
+		sink += sum;
+		if (result != null) {
+			result[0] = ops;
+			result[1] = now - start;
+		}
+	}
+}
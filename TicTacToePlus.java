@@ -8,8 +8,16 @@
  * @since September 3rd, 2015
  */
 
+import java.io.IOException;
 import java.util.Scanner;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntSupplier;
+import java.util.concurrent.atomic.LongAdder;
 
 public class TicTacToePlus {
 
@@ -32,18 +40,157 @@ public class TicTacToePlus {
 	public int aiTurn;
 
 	/**
-	 * Anti Tic Tac Toe is a game where the goal is
-	 * for your opponent to win a game of Tic Tac Toe
+	 * The results of searchValue, shared by every game and thread
 	 */
-	public static boolean antiTicTacToe = false;
+	public static final TicTacToeTranspositionTable transpositionTable = new TicTacToeTranspositionTable(1 << 16);
+
+	/**
+	 * The number of positions searchValue has visited
+	 */
+	public long nodesVisited;
+
+	/**
+	 * The rules the game is played by: the win length, and whether it
+	 * is Anti Tic Tac Toe. Nothing about the rules is static, so games
+	 * under different rules can be played at the same time.
+	 */
+	public final TicTacToeRules rules;
 
 	public TicTacToeMCTSNode root;
+	/**
+	 * The symmetry that maps a cell of root's board to the same cell of
+	 * board. It isn't the identity once nextRoot has moved the root to a
+	 * child that is a symmetric image of the move played.
+	 */
+	public int rootSymmetry;
 	public boolean monteCarloMode = true;
 
+	/**
+	 * The number of independent Monte Carlo trees searched at the same
+	 * time (root parallelism), and the number of trials for each of them
+	 */
+	public int monteCarloThreads = 1;
+	public int trialsPerThread = monteCarloTrials;
+	/**
+	 * When true, the threads all search root's tree together (tree
+	 * parallelism) instead of searching a tree each, spreading out
+	 * with virtualLoss virtual losses per thread
+	 */
+	public boolean treeParallel = false;
+	public int virtualLoss = 1;
+
+	/**
+	 * When true, the Monte Carlo search uses nodePool, a tree stored
+	 * in primitive arrays, instead of root
+	 */
+	public boolean nodePoolMode = false;
+	public TicTacToeMCTSPool nodePool;
+
+	/**
+	 * When true, the Monte Carlo search uses searchGraph, which stores
+	 * each position once and pools the statistics of transpositions,
+	 * instead of root
+	 */
+	public boolean graphMode = false;
+	public TicTacToeMCTSGraph searchGraph;
+
+	/**
+	 * When set, the ai looks its moves up in the tablebase instead of
+	 * searching, in the positions the tablebase covers
+	 */
+	public TicTacToeTablebase tablebase;
+
+	/**
+	 * When set, the ai's searches go through the cache, which many games
+	 * can share so that each position is only searched once
+	 */
+	public TicTacToeSearchCache searchCache;
+
+	/**
+	 * What picked the ai's last move, and the trials searched for it
+	 * on every thread, for TicTacToeMetrics
+	 */
+	private String moveSource;
+	private final LongAdder moveTrials = new LongAdder();
+
+	/**
+	 * The most time the ai may spend on a move, or 0 for no limit. The
+	 * Monte Carlo searches also stop early once the most tried move can't
+	 * be overtaken by the trials left in the budget.
+	 */
+	public long moveTimeMillis = 0;
+	private long searchDeadline;
+
+	/**
+	 * When true, the ai keeps searching its tree on a background thread
+	 * while the player is thinking, so that the subtree of whatever move
+	 * is played has already been searched. Pondering stops once the tree
+	 * has ponderTrialLimit trials, to bound its memory.
+	 */
+	public boolean ponder = false;
+	public int ponderTrialLimit = 10 * monteCarloTrials;
+	private volatile boolean pondering;
+	private Thread ponderThread;
+
+	/**
+	 * The threads of the parallel searches, one per core and shared by
+	 * every game, so that many games searching at once queue for them
+	 * instead of each adding threads of its own
+	 */
+	private static ExecutorService searchPool;
+	/**
+	 * When not in Monte Carlo mode, search with alphaBetaFindBestMove
+	 * instead of alternateFindBestMove. Off by default, so the ai plays
+	 * the same moves it always has unless it's turned on.
+	 */
+	public boolean alphaBetaMode = false;
+	public TicTacToeMoveOrdering moveOrdering = new TicTacToeMoveOrdering();
+	/**
+	 * The ai's random numbers. The Monte Carlo searches draw from it,
+	 * giving the threads of a parallel search generators split off it,
+	 * and so do the ties between equally good moves of the depth first
+	 * searches, so two games seeded the same way play the same moves
+	 * (see TicTacToeRandom for the searches that don't, unless replay is
+	 * set). Set it to a new TicTacToeRandom(random.seed()) to replay a game.
+	 */
+	public TicTacToeRandom random = new TicTacToeRandom();
+	/**
+	 * When true, the searches repeat exactly with the same seed, even
+	 * with tree parallelism: its threads' trials are run in turn on the
+	 * searching thread instead of at the same time, moveTimeMillis is
+	 * ignored and the ai doesn't ponder. Off by default, since it gives
+	 * up the speed of all of those.
+	 */
+	public boolean replay = false;
+
+	/**
+	 * Move and score buffers for each ply of the alpha-beta search,
+	 * so that ordering moves does not allocate
+	 */
+	private int[][] moveBuffers = new int[0][], scoreBuffers = new int[0][];
+
 	public TicTacToePlus(int aiTurn) {
+		this(aiTurn, 3, 3);
+	}
+
+	public TicTacToePlus(int aiTurn, int rows, int columns) {
+		this(aiTurn, rows, columns, TicTacToeRules.standard);
+	}
+
+	/**
+	 * Creates an m,n,k game with the passed board dimensions,
+	 * where k is the rules' win length.
+	 * 
+	 * @param aiTurn  0 for no ai, 1 for X and -1 for O
+	 * @param rows    The number of rows on the board
+	 * @param columns The number of columns on the board
+	 * @param rules   The rules the game is played by
+	 */
+	public TicTacToePlus(int aiTurn, int rows, int columns, TicTacToeRules rules) {
 		this.aiTurn = aiTurn;
+		this.rules = rules;
 		xTurn = true;
-		board = new char[3][3];
+		board = new char[rows][columns];
 		for (int i = 0; i < board.length; i++)
 			for (int a = 0; a < board[i].length; a++)
 				board[i][a] = ' ';
@@ -63,7 +210,7 @@ public class TicTacToePlus {
 			System.out.println();
 			System.out.print("   ");
 			if (i < board.length - 1)
-				for (int b = 0; b < board.length * 2 - 1; b++)
+				for (int b = 0; b < board[i].length * 2 - 1; b++)
 					System.out.print("-");
 			System.out.println(); 
 		}
@@ -71,120 +218,98 @@ public class TicTacToePlus {
 	}
 
 	/**
-	 * @param pumpkins ai turn as parameter
+	 * @param pumpkins ai turn, then optionally the rows, columns,
+	 *                 win length and anti as parameters
 	 */
 	public static void main(String... pumpkins) {
 		// Pass 0 for no ai, 1 for ai as X and -1 for ai as O
-		TicTacToePlus TTT = new TicTacToePlus(pumpkins.length > 0 ? Integer.parseInt(pumpkins[0]):0);
+		int aiTurn = pumpkins.length > 0 ? Integer.parseInt(pumpkins[0]):0;
+		int rows = pumpkins.length > 2 ? Integer.parseInt(pumpkins[1]):3;
+		int columns = pumpkins.length > 2 ? Integer.parseInt(pumpkins[2]):3;
+		int winLength = pumpkins.length > 3 ? Integer.parseInt(pumpkins[3]):3;
+		boolean anti = pumpkins.length > 4 && Boolean.parseBoolean(pumpkins[4]);
+		TicTacToePlus TTT = new TicTacToePlus(aiTurn, rows, columns, TicTacToeRules.of(winLength, anti));
+		// Pass a seed to replay a game
+		if (pumpkins.length > 5)
+			TTT.random = new TicTacToeRandom(Long.parseLong(pumpkins[5]));
 		TTT.run();
 	}
 
 	/**
-	 * This function runs the game
+	 * Returns the result of the game on the board under the standard
+	 * rules. The rule checks used to be statics of this class, and are
+	 * kept for the callers that still use them.
+	 *
+	 * @deprecated Use the rules' gameResult, see TicTacToeRules
 	 */
-	public void run() {
-		System.out.println("\nWelcome to Tic Tac Toe!");
-
-		printBoard(board);
-		while (!gameOver(board)) {
-			playMove();
-			printBoard(board);
-		}
-		printResult();
+	@Deprecated
+	public static int gameResult(char[][] board) {
+		return TicTacToeRules.standard.gameResult(board);
 	}
 
 	/**
-	 * This function checks if the game is win
-	 * on the board, returing either a -1 (circles win),
-	 * 1 (Xs win), or 0 (neither won)
-	 * 
-	 * @return int Result of game
+	 * @deprecated Use the rules' gameResult, see TicTacToeRules
 	 */
-	public static int gameResult(char[][] board) {
-
-		char color;
-		int consecutive;
+	@Deprecated
+	public static int gameResult(char[][] board, int x, int y) {
+		return TicTacToeRules.standard.gameResult(board, x, y);
+	}
 
-		// check vertical
-		for (int i = 0; i < board.length; i++) {
-			consecutive = 0;
-			color = '?';
-			for (int a = 0; a < board[i].length; a++)
-				if (board[i][a] == color)
-					consecutive++;
-				else if (board[i][a] == 'X' || board[i][a] == 'O') {
-					consecutive = 1;
-					color = board[i][a];
-				}
-				else consecutive = 0;
-			if (consecutive == 3)
-				return color == 'O' == antiTicTacToe ? 1:-1;
-		}
+	/**
+	 * @deprecated Use the rules' resultFor, see TicTacToeRules
+	 */
+	@Deprecated
+	public static int resultFor(char color) {
+		return TicTacToeRules.standard.resultFor(color);
+	}
 
-		// check horizontal
-		for (int a = 0; a < board[0].length; a++) {
-			consecutive = 0;
-			color = '?';
-			for (int i = 0; i < board.length; i++)
-				if (board[i][a] == color)
-					consecutive++;
-				else if (board[i][a] == 'X' || board[i][a] == 'O') {
-					consecutive = 1;
-					color = board[i][a];
-				}
-				else consecutive = 0;
-			if (consecutive == 3)
-				return color == 'O' == antiTicTacToe ? 1:-1;
-		}
+	/**
+	 * @deprecated Use the rules' bitboard, see TicTacToeRules
+	 */
+	@Deprecated
+	public static boolean bitboardRules(char[][] board) {
+		return TicTacToeRules.standard.bitboard(board);
+	}
 
-		// check top-left to bottom-right diagonal
-		consecutive = 0;
-		color = '?';
-		for (int i = 0, a = 0; i < board.length; i++, a++)
-			if (board[i][a] == color)
-				consecutive++;
-			else if (board[i][a] == 'X' || board[i][a] == 'O') {
-				consecutive = 1;
-				color = board[i][a];
-			}
-			else consecutive = 0;
-		if (consecutive == 3)
-			return color == 'O' == antiTicTacToe ? 1:-1;
-
-		// check top-right to bottom-left diagonal
-		consecutive = 0;
-		color = '?';
-		for (int i = board.length - 1, a = 0; i >= 0; i--, a++)
-			if (board[i][a] == color)
-				consecutive++;
-			else if (board[i][a] == 'X' || board[i][a] == 'O') {
-				consecutive = 1;
-				color = board[i][a];
-			}
-			else consecutive = 0;
-		if (consecutive == 3)
-			return color == 'O' == antiTicTacToe ? 1:-1;
+	/**
+	 * @deprecated Use the rules' gameOver, see TicTacToeRules
+	 */
+	@Deprecated
+	public static boolean gameOver(char[][] board) {
+		return TicTacToeRules.standard.gameOver(board);
+	}
 
-		return 0;
+	/**
+	 * @deprecated Use the rules' getWinningMove, see TicTacToeRules
+	 */
+	@Deprecated
+	public static int[] getWinningMove(char[][] board) {
+		return TicTacToeRules.standard.getWinningMove(board);
 	}
 
 	/**
-	 * This function returns true if the game is over,
-	 * false otherwise
-	 * 
-	 * @param  board   The current state of the board
-	 * @return boolean Whether or not game is over
+	 * Returns a random legal move, or a move that is winning, with the
+	 * current thread's random numbers
+	 *
+	 * @deprecated Use the rules' getRandomMove, see TicTacToeRules
 	 */
-	public static boolean gameOver(char[][] board) {
-		if (gameResult(board) != 0)
-			return true;
+	@Deprecated
+	public static int[] getRandomMove(char[][] board, boolean xTurn) {
+		return TicTacToeRules.standard.getRandomMove(board, xTurn, TicTacToeRandom.current());
+	}
 
-		for (int i = 0; i < board.length; i++)
-			for (int a = 0; a < board[i].length; a++)
-				if (board[i][a] == ' ')
-					return false;
+	/**
+	 * This function runs the game
+	 */
+	public void run() {
+		System.out.println("\nWelcome to Tic Tac Toe!");
 
-		return true;
+		printBoard(board);
+		while (!rules.gameOver(board)) {
+			playMove();
+			printBoard(board);
+		}
+		printResult();
 	}
 
 	/**
@@ -199,6 +324,10 @@ public class TicTacToePlus {
 		// In Monte Carlo Tree Search, you can reuse the subtree of
 		// the previous root to be more efficient.
 		root = nextRoot(x, y);
+		if (nodePool != null)
+			nodePool.nextRoot(board, xTurn, x, y);
+		if (searchGraph != null)
+			searchGraph.setRoot(board, xTurn);
 	}
 
 	/**
@@ -209,35 +338,96 @@ public class TicTacToePlus {
 		if ((aiTurn == 1 && xTurn) || (aiTurn == -1 && !xTurn))
 			playMoveAI();
 		else {
-			// if (getWinningMove(board)[0] == -1)
+			// if (rules.getWinningMove(board)[0] == -1)
 			// 	System.out.println("No Winning Move");
 			Scanner keyboard = new Scanner(System.in);
 			int playerX, playerY;
-			do {
-				do {
-					System.out.print("Enter an X coordinate:\t");
-					playerX = keyboard.nextInt();
-				}	while (playerX < 0 || playerX >= board.length);
-
+			// Keep searching on the ai's tree while waiting for the player
+			if (ponder && aiTurn != 0)
+				startPondering();
+			try {
 				do {
-					System.out.print("Enter a Y coordinate:\t");
-					playerY = keyboard.nextInt();
-				}	while (playerY < 0 || playerY >= board[playerX].length);
-
-				if (board[playerY][playerX] != ' ')
-					System.out.println(playerX + " " + playerY + " is already occupied!");
-			}	while (board[playerY][playerX] != ' ');
+					do {
+						System.out.print("Enter an X coordinate:\t");
+						playerX = keyboard.nextInt();
+					}	while (playerX < 0 || playerX >= board[0].length);
+
+					do {
+						System.out.print("Enter a Y coordinate:\t");
+						playerY = keyboard.nextInt();
+					}	while (playerY < 0 || playerY >= board.length);
+
+					if (board[playerY][playerX] != ' ')
+						System.out.println(playerX + " " + playerY + " is already occupied!");
+				}	while (board[playerY][playerX] != ' ');
+			}
+			finally {
+				stopPondering();
+			}
 
 			playMove(playerY, playerX);
 		}
 	}
 
+	/**
+	 * Starts searching the ai's tree on a background thread, until
+	 * stopPondering is called
+	 */
+	public void startPondering() {
+		if (!monteCarloMode || replay || ponderThread != null || rules.gameOver(board))
+			return;
+		if (nodePoolMode && nodePool == null)
+			nodePool = new TicTacToeMCTSPool(board, xTurn, expansionConstant, rules);
+		if (graphMode && searchGraph == null)
+			searchGraph = new TicTacToeMCTSGraph(board, xTurn, expansionConstant, rules);
+		final TicTacToeMCTSNode tree = root;
+		final TicTacToeMCTSPool pool = nodePoolMode ? nodePool:null;
+		final TicTacToeMCTSGraph graph = graphMode && !nodePoolMode ? searchGraph:null;
+		final TicTacToeRandom ponderRandom = random.split();
+
+		pondering = true;
+		ponderThread = new Thread(() -> {
+			if (pool != null)
+				while (pondering && pool.rootTrials() < ponderTrialLimit)
+					pool.chooseChild(ponderRandom);
+			else if (graph != null)
+				while (pondering && graph.rootTrials() < ponderTrialLimit)
+					graph.chooseChild(ponderRandom);
+			else while (pondering && tree.stats.totalTrials < ponderTrialLimit)
+				tree.chooseChild(ponderRandom);
+		}, "TicTacToe ponder");
+		ponderThread.setDaemon(true);
+		ponderThread.start();
+	}
+
+	/**
+	 * Stops pondering, waiting for the current trial to finish so that
+	 * the tree can safely be used again
+	 */
+	public void stopPondering() {
+		if (ponderThread == null)
+			return;
+		pondering = false;
+		// The tree, pool and graph aren't safe to search until the thread has exited, so an interrupt only waits longer
+		boolean interrupted = false;
+		while (ponderThread.isAlive())
+			try {
+				ponderThread.join();
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		ponderThread = null;
+	}
+
 	/**
 	 * Prints the result of the game
 	 */
 	public void printResult() {
 		System.out.println("\nGame Over!!!");
-		switch (gameResult(board)) {
+		switch (rules.gameResult(board)) {
 			case -1:
 				System.out.println("Circles won!");
 				break;
@@ -255,25 +445,322 @@ public class TicTacToePlus {
 	 * This function plays the best move
 	 */
 	public void playMoveAI() {
+		if (!TicTacToeMetrics.enabled) {
+			int[] move = aiMove();
+			playMove(move[0], move[1]);
+			return;
+		}
+		TicTacToeMetrics.MoveEvent event = new TicTacToeMetrics.MoveEvent();
+		event.begin();
+		long start = System.nanoTime(), allocated = TicTacToeMetrics.allocatedBytes();
+		moveTrials.reset();
+		int[] move = aiMove();
+		long nanos = System.nanoTime() - start, bytes = TicTacToeMetrics.allocatedBytes() - allocated;
+		TicTacToeMetrics.recordMove(moveSource, nanos, bytes, moveTrials.sum(), monteCarloMode && !nodePoolMode && !graphMode ? root:null, event);
+		playMove(move[0], move[1]);
+	}
+
+	/**
+	 * Picks the ai's move, setting moveSource to what picked it
+	 *
+	 * @return The x and y coords of the move
+	 */
+	private int[] aiMove() {
 		// Duplicating the array is redundant with the way Depth First Search is implemented, but it is still a good habit
 		char[][] boardCopy = new char[board.length][board[0].length];
 		for (int i = 0; i < board.length; i++)
 			for (int a = 0; a < board[i].length; a++)
 				boardCopy[i][a] = board[i][a];
 
+		if (tablebase != null && tablebase.covers(board, rules)) {
+			int[] analysis = tablebase.bestMove(board);
+			if (analysis != null && analysis[1] != -1) {
+				moveSource = "tablebase";
+				return new int[] {analysis[1], analysis[2]};
+			}
+		}
+
+		// Forced moves don't need a search
+		int[] forcedMove = forcedMove();
+		if (forcedMove != null) {
+			moveSource = "forced";
+			return forcedMove;
+		}
+		searchDeadline = moveTimeMillis > 0 && !replay ? System.nanoTime() + moveTimeMillis * 1000000:0;
+
+		moveSource = "search";
+		return searchCache != null ? cachedSearch(boardCopy):search(boardCopy);
+	}
+
+	/**
+	 * Searches for the ai's move with the search the game is set up for
+	 *
+	 * @param  boardCopy A copy of board, for the depth first searches to play on
+	 * @return           The x and y coords of the best move
+	 */
+	private int[] search(char[][] boardCopy) {
 		// Run many trials for the current root node
-		if (monteCarloMode) {
-			for (int i = 0; i < monteCarloTrials; i++)
-				root.chooseChild();
+		if (monteCarloMode && nodePoolMode) {
+			if (nodePool == null)
+				nodePool = new TicTacToeMCTSPool(board, xTurn, expansionConstant, rules);
+			final TicTacToeMCTSPool pool = nodePool;
+			runTrials(() -> pool.chooseChild(random), () -> pool.leaderMargin(), trialsPerThread, 1);
+			return nodePool.getBestMove();
+		}
+		else if (monteCarloMode && graphMode) {
+			if (searchGraph == null)
+				searchGraph = new TicTacToeMCTSGraph(board, xTurn, expansionConstant, rules);
+			final TicTacToeMCTSGraph graph = searchGraph;
+			runTrials(() -> graph.chooseChild(random), () -> graph.leaderMargin(), trialsPerThread, 1);
+			return searchGraph.getBestMove();
+		}
+		else if (monteCarloMode) {
+			if (monteCarloThreads > 1 && treeParallel)
+				treeParallelSearch();
+			else if (monteCarloThreads > 1) {
+				int[] trials = rootParallelSearch(), bestMove = null;
+				int mostTrials = -1;
+				for (int i = 0; i < trials.length; i++)
+					if (trials[i] > mostTrials) {
+						mostTrials = trials[i];
+						bestMove = root.children[i].lastMove;
+					}
+				if (bestMove != null)
+					return fromRoot(bestMove);
+			}
+			else {
+				final TicTacToeMCTSNode tree = root;
+				runTrials(() -> tree.chooseChild(random), () -> leaderMargin(tree), trialsPerThread, 1);
+			}
+			// Without a single trial (trialsPerThread <= 0) the root has no children to pick from
+			if (root.children == null)
+				return rules.getRandomMove(board, xTurn, random);
+			return getBestMove();
+		}
+		int[] aiAnalysis = alphaBetaMode ? alphaBetaFindBestMove(boardCopy, xTurn):alternateFindBestMove(boardCopy, xTurn);
+		return new int[] {aiAnalysis[1], aiAnalysis[2]};
+	}
 
-			int[] bestMove = getBestMove(root);
-			playMove(bestMove[0], bestMove[1]);
+	/**
+	 * Looks the ai's move up in searchCache, searching for it only if no
+	 * other game has searched the position (or a symmetric one). The
+	 * cache keeps a copy of the searched tree, and a game that finds it
+	 * makes its own copy of that its root, so that later moves reuse its
+	 * subtrees without any two games sharing a tree.
+	 *
+	 * @param  boardCopy A copy of board, for the depth first searches to play on
+	 * @return           The x and y coords of the best move
+	 */
+	private int[] cachedSearch(char[][] boardCopy) {
+		int rows = board.length, columns = board[0].length;
+		int sym = TicTacToeSymmetry.canonicalSymmetry(board);
+		// Monte Carlo and depth first results are cached apart
+		long key = TicTacToeSearchCache.key(TicTacToeSymmetry.hash(board, sym), rules.state(board, xTurn) * 2 + (monteCarloMode ? 1:0));
+		boolean nodeTree = monteCarloMode && !nodePoolMode && !graphMode;
+		moveSource = "cache";
+		TicTacToeSearchCache.Result result = searchCache.get(key, () -> {
+			moveSource = "search";
+			int[] move = search(boardCopy);
+			// Only the node tree can be copied by other games, and root stays this game's own
+			TicTacToeMCTSNode tree = nodeTree ? root.copy(null):null;
+			return new TicTacToeSearchCache.Result(TicTacToeSymmetry.transformCell(sym, move[0] * columns + move[1], rows, columns), tree);
+		});
+
+		if (nodeTree && result.tree != null && moveSource.equals("cache")) {
+			root = result.tree.copy(null);
+			rootSymmetry = TicTacToeSymmetry.compose(TicTacToeSymmetry.canonicalSymmetry(root.board), TicTacToeSymmetry.inverse(sym));
 		}
-		else {
-			int[] aiAnalysis = alternateFindBestMove(boardCopy, xTurn);
-			playMove(aiAnalysis[1], aiAnalysis[2]);
+		int cell = TicTacToeSymmetry.transformCell(TicTacToeSymmetry.inverse(sym), result.bestCell, rows, columns);
+		return new int[] {cell / columns, cell % columns};
+	}
+
+	/**
+	 * Runs a trial trials times, stopping early if the move's deadline
+	 * passes or if the leading move's margin over the second most tried
+	 * move is more than the trials left. The trials left are estimated
+	 * from the remaining budget, and from the rate so far if there is
+	 * a deadline.
+	 * 
+	 * @param trial        Runs a single trial
+	 * @param leaderMargin Returns the leading move's margin, or null to only stop for the deadline
+	 * @param trials       The number of trials to run
+	 * @param threads      The number of threads running trials on the same tree
+	 */
+	private void runTrials(Runnable trial, IntSupplier leaderMargin, int trials, int threads) {
+		int i = runTrialsUntilDone(trial, leaderMargin, trials, threads);
+		moveTrials.add(i);
+		if (TicTacToeMetrics.enabled)
+			TicTacToeMetrics.playouts.add(i);
+	}
+
+	/**
+	 * Runs the trials for runTrials
+	 *
+	 * @return The number of trials run
+	 */
+	private int runTrialsUntilDone(Runnable trial, IntSupplier leaderMargin, int trials, int threads) {
+		long start = System.nanoTime();
+		for (int i = 1; i <= trials; i++) {
+			trial.run();
+			if ((i & 255) != 0)
+				continue;
+
+			long now = System.nanoTime(), remaining = (long)(trials - i) * threads;
+			if (searchDeadline != 0) {
+				if (now >= searchDeadline)
+					return i;
+				remaining = Math.min(remaining, (long)((double)i * threads * (searchDeadline - now) / Math.max(now - start, 1)));
+			}
+			if (leaderMargin != null && leaderMargin.getAsInt() > remaining)
+				return i;
+		}
+		return trials;
+	}
+
+	/**
+	 * Returns how many more trials the root's most tried child has than
+	 * the second most tried child
+	 */
+	public static int leaderMargin(TicTacToeMCTSNode root) {
+		TicTacToeMCTSNode[] children = root.children;
+		if (children == null)
+			return 0;
+		int most = 0, second = 0;
+		for (int i = 0; i < children.length; i++) {
+			int trials = children[i].stats.totalTrials;
+			if (trials > most) {
+				second = most;
+				most = trials;
+			}
+			else if (trials > second)
+				second = trials;
+		}
+		return most - second;
+	}
+
+	/**
+	 * Returns the move to play without searching if the position is
+	 * forced: the only legal move, a move that wins immediately, or a
+	 * move that blocks the opponent from winning immediately. Returns
+	 * null if the position isn't forced.
+	 * 
+	 * @return The x and y coords of the forced move, or null
+	 */
+	public int[] forcedMove() {
+		int sign = xTurn ? 1:-1, moves = 0;
+		int[] onlyMove = null, block = null;
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < board[i].length; a++) {
+				if (board[i][a] != ' ')
+					continue;
+				moves++;
+				onlyMove = new int[] {i, a};
+
+				board[i][a] = xTurn ? 'X':'O';
+				int result = rules.gameResult(board, i, a) * sign;
+				board[i][a] = xTurn ? 'O':'X';
+				int opponentResult = rules.gameResult(board, i, a) * sign;
+				board[i][a] = ' ';
+
+				if (result > 0)
+					return onlyMove;
+				if (opponentResult < 0 && block == null)
+					block = onlyMove;
+			}
+		return moves == 1 ? onlyMove:block;
+	}
+
+	/**
+	 * Searches monteCarloThreads independent trees at the same time, each
+	 * on its own thread with its own random numbers, split off random in
+	 * the order of the trees so that the search is repeatable. The root's
+	 * own tree is one of them, so its subtrees can still be reused. The
+	 * trials of the other trees' root children are then added up with the
+	 * trials of the matching children of root, in an array of their own so
+	 * that every tree's statistics stay those of its own trials.
+	 *
+	 * @return The trials of root's children over every tree, indexed like
+	 *         root.children, or an empty array if root has no children
+	 */
+	public int[] rootParallelSearch() {
+		TicTacToeMCTSNode[] trees = new TicTacToeMCTSNode[monteCarloThreads];
+		Future<?>[] searches = new Future<?>[trees.length];
+		for (int t = 0; t < trees.length; t++) {
+			final TicTacToeMCTSNode tree = trees[t] = t == 0 ? root:new TicTacToeMCTSNode(board, xTurn, null, null, expansionConstant, rules);
+			final TicTacToeRandom treeRandom = random.split();
+			// The trees are merged afterwards, so each one only stops early for the deadline
+			searches[t] = getSearchPool().submit(() -> runTrials(() -> tree.chooseChild(treeRandom), null, trialsPerThread, 1));
+		}
+		try {
+			for (int t = 0; t < searches.length; t++)
+				searches[t].get();
+		}
+		catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+
+		// A tree without a single trial has no children, and adds nothing
+		if (root.children == null)
+			return new int[0];
+		// Each tree drops a different one of the symmetric children, so match them by position
+		int[] trials = new int[root.children.length];
+		HashMap<Long, Integer> children = new HashMap<Long, Integer>();
+		for (int i = 0; i < root.children.length; i++) {
+			children.put(TicTacToeSymmetry.canonicalHash(root.children[i].board), i);
+			trials[i] = root.children[i].stats.totalTrials;
+		}
+		for (int t = 1; t < trees.length; t++)
+			for (int i = 0; trees[t].children != null && i < trees[t].children.length; i++) {
+				TicTacToeMCTSNode child = trees[t].children[i];
+				Integer match = children.get(TicTacToeSymmetry.canonicalHash(child.board));
+				if (match != null)
+					trials[match] += child.stats.totalTrials;
+			}
+		return trials;
+	}
+
+	/**
+	 * Searches root's tree with monteCarloThreads threads at the same
+	 * time, each running trialsPerThread trials with its own random
+	 * numbers. Which thread reaches a node first changes the search, so
+	 * unlike the other searches it doesn't repeat with the same seed,
+	 * unless replay is set. Then the threads take turns instead, one
+	 * trial each, all on the calling thread.
+	 */
+	public void treeParallelSearch() {
+		final TicTacToeMCTSNode tree = root;
+		if (replay) {
+			final TicTacToeRandom[] threadRandoms = new TicTacToeRandom[monteCarloThreads];
+			for (int t = 0; t < threadRandoms.length; t++)
+				threadRandoms[t] = random.split();
+			final int[] turn = {0};
+			runTrials(() -> tree.chooseChild(virtualLoss, threadRandoms[turn[0]++ % threadRandoms.length]), () -> leaderMargin(tree), trialsPerThread * monteCarloThreads, 1);
+			return;
+		}
+		// The threads write the counters of nodes next to each other, so the nodes they add are padded
+		tree.padStatistics();
+		Future<?>[] searches = new Future<?>[monteCarloThreads];
+		for (int t = 0; t < searches.length; t++) {
+			final TicTacToeRandom threadRandom = random.split();
+			searches[t] = getSearchPool().submit(() -> runTrials(() -> tree.chooseChild(virtualLoss, threadRandom), () -> leaderMargin(tree), trialsPerThread, monteCarloThreads));
+		}
+		try {
+			for (int t = 0; t < searches.length; t++)
+				searches[t].get();
+		}
+		catch (Exception e) {
+			throw new RuntimeException(e);
 		}
-		
+	}
+
+	private static synchronized ExecutorService getSearchPool() {
+		if (searchPool == null)
+			searchPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+				Thread thread = new Thread(r, "TicTacToe search");
+				thread.setDaemon(true);
+				return thread;
+			});
+		return searchPool;
 	}
 
 	/**
@@ -287,6 +774,9 @@ public class TicTacToePlus {
 	 * @return       A two dimensional array containing all the possible moves
 	 */
 	public static int[][] possibleMoves(char[][] board) {
+		if (TicTacToeBitboard.fits(board))
+			return TicTacToeBitboard.possibleMoves(TicTacToeBitboard.bits(board, 'X'), TicTacToeBitboard.bits(board, 'O'));
+
 		int numPossibleMoves = 0;
 		for (int i = 0; i < board.length; i++)
 			for (int a = 0; a < board[i].length; a++)
@@ -305,9 +795,9 @@ public class TicTacToePlus {
 	}
 
 	/**
-	 * This (recursive) function finds the best move, returning
+	 * This function finds the best move, returning
 	 * a result array with the analysis, the x, and the y coords
-	 * for the best move
+	 * for the best move. The moves are valued with searchValue.
 	 * 
 	 * @param  board The current state of the board
 	 * @param  xTurn Whether or not it is the X's turn currently
@@ -317,8 +807,8 @@ public class TicTacToePlus {
 
 		// If the game is already over with this board, return the result
 
-		if (gameOver(board))
-			return new int[] {gameResult(board), -1, -1};
+		if (rules.gameOver(board))
+			return new int[] {rules.gameResult(board), -1, -1};
 
 		// If the game is still going, check all the possible moves
 		// and choose the one with the most favorable outcome for the player
@@ -328,9 +818,9 @@ public class TicTacToePlus {
 		int bestX = possibleMoves[0][0], bestY = possibleMoves[0][1], result = xTurn ? -1:1;
 
 		for (int i = 0; i < possibleMoves.length; i++) {
-			// Place the move, then run the function recrusively, then undo the move
+			// Place the move, then search the resulting position, then undo the move
 			board[possibleMoves[i][0]][possibleMoves[i][1]] = xTurn ? 'X':'O';
-			int tempResult = findBestMove(board, !xTurn)[0];
+			int tempResult = searchValue(board, !xTurn);
 			board[possibleMoves[i][0]][possibleMoves[i][1]] = ' ';
 
 			// Check if the result is favorable for the player
@@ -339,7 +829,7 @@ public class TicTacToePlus {
 				bestY = possibleMoves[i][1];
 				result = tempResult;
 			}
-			else if (tempResult == result && Math.random() > 1f / possibleMoves.length) { // element of randomness, optional
+			else if (tempResult == result && random.nextDouble() > 1f / possibleMoves.length) { // element of randomness, optional
 				bestX = possibleMoves[i][0];
 				bestY = possibleMoves[i][1];
 				result = tempResult;
@@ -351,7 +841,8 @@ public class TicTacToePlus {
 
 	/**
 	 * This alternate implementation of DFS doesn't require a possibleMoves function.
-	 * This makes it faster, and probably more intuitive
+	 * This makes it faster, and probably more intuitive. The moves are valued
+	 * with searchValue.
 	 * @param  board The current state of the board
 	 * @param  xTurn The current turn
 	 * @return       A result
@@ -360,8 +851,8 @@ public class TicTacToePlus {
 
 		// If the game is already over with this board, return the result
 
-		if (gameOver(board))
-			return new int[] {gameResult(board), -1, -1};
+		if (rules.gameOver(board))
+			return new int[] {rules.gameResult(board), -1, -1};
 
 		// If the game is still going, check all the possible moves
 		// and choose the one with the most favorable outcome for the player
@@ -372,9 +863,9 @@ public class TicTacToePlus {
 			for (int a = 0; a < board[i].length; a++) {
 				if (board[i][a] != ' ')
 					continue;
-				// Place the move, then run the function recrusively, then undo the move
+				// Place the move, then search the resulting position, then undo the move
 				board[i][a] = xTurn ? 'X':'O';
-				int tempResult = alternateFindBestMove(board, !xTurn)[0];
+				int tempResult = searchValue(board, !xTurn);
 				board[i][a] = ' ';
 
 				// Check if the result is favorable for the player
@@ -383,7 +874,7 @@ public class TicTacToePlus {
 					bestY = a;
 					result = tempResult;
 				}
-				else if (tempResult == result && Math.random() > 0.5) { // element of randomness, optional
+				else if (tempResult == result && random.nextDouble() > 0.5) { // element of randomness, optional
 					bestX = i;
 					bestY = a;
 					result = tempResult;
@@ -394,83 +885,202 @@ public class TicTacToePlus {
 	}
 
 	/**
-	 * This functions returns true if a win is possible
-	 * in the current position, false otherwise. Note that this function
-	 * is not used elsewhere in the program.
+	 * This (recursive) function returns the value of the position
+	 * with the best play from both players. Results are stored in the
+	 * shared transpositionTable under the position's canonical hash,
+	 * so a position reached through a different move order, or symmetric
+	 * to one that was already searched, is only searched once.
+	 * 
 	 * @param  board The current state of the board
-	 * @return       A boolean value true if possible, false otherwise
+	 * @param  xTurn Whether or not it is the X's turn currently
+	 * @return       The value of the position, -1, 0 or 1
 	 */
-	public static boolean winPossible(char[][] board) {
+	public int searchValue(char[][] board, boolean xTurn) {
+		nodesVisited++;
 
-		char color;
-		int consecutive;
-		boolean emptyAdjacentSpot;
+		// If the game is already over with this board, return the result
 
-		// check vertical
-		for (int i = 0; i < board.length; i++) {
-			consecutive = 0;
-			color = '?';
-			emptyAdjacentSpot = false;
-			for (int a = 0; a < board[i].length; a++)
-				if (board[i][a] == color)
-					consecutive++;
-				else if (board[i][a] == 'X' || board[i][a] == 'O') {
-					consecutive = 1;
-					color = board[i][a];
+		if (rules.gameOver(board))
+			return rules.gameResult(board);
+
+		int sym = TicTacToeSymmetry.canonicalSymmetry(board);
+		long key = TicTacToeTranspositionTable.key(TicTacToeSymmetry.hash(board, sym), rules.state(board, xTurn));
+		long entry = transpositionTable.probe(key);
+		if (entry != TicTacToeTranspositionTable.MISS && TicTacToeTranspositionTable.bound(entry) == TicTacToeTranspositionTable.EXACT)
+			return TicTacToeTranspositionTable.value(entry);
+
+		int result = xTurn ? -1:1, bestCell = -1, emptyCells = 0;
+
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < board[i].length; a++) {
+				if (board[i][a] != ' ')
+					continue;
+				emptyCells++;
+				board[i][a] = xTurn ? 'X':'O';
+				int tempResult = searchValue(board, !xTurn);
+				board[i][a] = ' ';
+
+				if (bestCell == -1 || (xTurn && tempResult > result) || (!xTurn && tempResult < result)) {
+					bestCell = i * board[i].length + a;
+					result = tempResult;
 				}
-				else emptyAdjacentSpot = true;
-			if (consecutive == 3 || (consecutive == 2 && emptyAdjacentSpot))
-				return true;
+			}
+
+		// The best move is stored as seen from the canonical position
+		transpositionTable.store(key, result, TicTacToeSymmetry.transformCell(sym, bestCell, board.length, board[0].length), emptyCells);
+		return result;
+	}
+
+	/**
+	 * This function finds the best move with a negamax alpha-beta search,
+	 * returning a result array with the analysis, the x, and the y coords
+	 * like findBestMove. Moves are searched in the order given by
+	 * moveOrdering, and the search stops looking at a position's moves
+	 * once it knows they can't change the result. Ties between the best
+	 * moves are broken with random.
+	 * 
+	 * @param  board The current state of the board
+	 * @param  xTurn Whether or not it is the X's turn currently
+	 * @return       A result including the best x and y coords
+	 */
+	public int[] alphaBetaFindBestMove(char[][] board, boolean xTurn) {
+		if (rules.gameOver(board))
+			return new int[] {rules.gameResult(board), -1, -1};
+
+		int columns = board[0].length, emptyCells = 0;
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < columns; a++)
+				if (board[i][a] == ' ')
+					emptyCells++;
+		prepareBuffers(board);
+
+		int[] moves = moveBuffers[emptyCells], ties = scoreBuffers[emptyCells];
+		int numMoves = moveOrdering.orderMoves(board, xTurn, -1, moves, ties, rules);
+		int best = -2, numTies = 0;
+
+		for (int i = 0; i < numMoves; i++) {
+			int x = moves[i] / columns, y = moves[i] % columns;
+			board[x][y] = xTurn ? 'X':'O';
+			// Search with a window just below the best value, so that moves as good as it get an exact value
+			int value = -negamax(board, !xTurn, x, y, emptyCells - 1, -2, -(best - 1));
+			board[x][y] = ' ';
+
+			if (value > best) {
+				best = value;
+				numTies = 0;
+			}
+			if (value == best)
+				ties[numTies++] = moves[i];
 		}
 
-		// check horizontal
-		for (int a = 0; a < board[0].length; a++) {
-			consecutive = 0;
-			color = '?';
-			emptyAdjacentSpot = false;
-			for (int i = 0; i < board.length; i++)
-				if (board[i][a] == color)
-					consecutive++;
-				else if (board[i][a] == 'X' || board[i][a] == 'O') {
-					consecutive = 1;
-					color = board[i][a];
-				}
-				else emptyAdjacentSpot = true;
-			if (consecutive == 3 || (consecutive == 2 && emptyAdjacentSpot))
-				return true;
+		// Break the ties, the scores buffer is free to reuse by now. The order moveOrdering
+		// searched them in depends on earlier searches, so sort them to pick from the same list.
+		Arrays.sort(ties, 0, numTies);
+		int move = ties[random.nextInt(numTies)];
+		return new int[] {xTurn ? best:-best, move / columns, move % columns};
+	}
+
+	/**
+	 * The (recursive) negamax alpha-beta search, returning the value of the
+	 * position for the player whose turn it is. The value is exact if it is
+	 * strictly between alpha and beta, and otherwise only a bound.
+	 * 
+	 * @param  board      The current state of the board
+	 * @param  xTurn      Whether or not it is the X's turn currently
+	 * @param  lastX      The x coord of the move that led to this position
+	 * @param  lastY      The y coord of the move that led to this position
+	 * @param  emptyCells The number of empty cells on the board
+	 * @param  alpha      The value the player to move is already guaranteed
+	 * @param  beta       The value the opponent is already guaranteed to hold the player to
+	 * @return            The value of the position
+	 */
+	private int negamax(char[][] board, boolean xTurn, int lastX, int lastY, int emptyCells, int alpha, int beta) {
+		nodesVisited++;
+		int sign = xTurn ? 1:-1;
+
+		// Only the last move can have ended the game
+		int result = rules.gameResult(board, lastX, lastY);
+		if (result != 0)
+			return result * sign;
+		if (emptyCells == 0)
+			return 0;
+
+		// Nothing is better than a win or worse than a loss
+		alpha = Math.max(alpha, -1);
+		beta = Math.min(beta, 1);
+
+		int rows = board.length, columns = board[0].length;
+		int sym = TicTacToeSymmetry.canonicalSymmetry(board);
+		long key = TicTacToeTranspositionTable.key(TicTacToeSymmetry.hash(board, sym), rules.state(board, xTurn));
+		long entry = transpositionTable.probe(key);
+		int ttCell = -1;
+		if (entry != TicTacToeTranspositionTable.MISS) {
+			int value = TicTacToeTranspositionTable.value(entry) * sign, bound = TicTacToeTranspositionTable.bound(entry);
+			// Bounds are stored from X's point of view, so they flip for O
+			if (bound != TicTacToeTranspositionTable.EXACT && !xTurn)
+				bound = bound == TicTacToeTranspositionTable.LOWER ? TicTacToeTranspositionTable.UPPER:TicTacToeTranspositionTable.LOWER;
+			if (bound == TicTacToeTranspositionTable.EXACT)
+				return value;
+			if (bound == TicTacToeTranspositionTable.LOWER)
+				alpha = Math.max(alpha, value);
+			else beta = Math.min(beta, value);
+			if (alpha >= beta)
+				return value;
+			if (TicTacToeTranspositionTable.bestCell(entry) != -1)
+				ttCell = TicTacToeSymmetry.transformCell(TicTacToeSymmetry.inverse(sym), TicTacToeTranspositionTable.bestCell(entry), rows, columns);
 		}
 
-		// check top-left to bottom-right diagonal
-		consecutive = 0;
-		color = '?';
-		emptyAdjacentSpot = false;
-		for (int i = 0, a = 0; i < board.length; i++, a++)
-			if (board[i][a] == color)
-				consecutive++;
-			else if (board[i][a] == 'X' || board[i][a] == 'O') {
-				consecutive = 1;
-				color = board[i][a];
-			}
-			else emptyAdjacentSpot = true;
-		if (consecutive == 3 || (consecutive == 2 && emptyAdjacentSpot))
-			return true;
+		int[] moves = moveBuffers[emptyCells];
+		int numMoves = moveOrdering.orderMoves(board, xTurn, ttCell, moves, scoreBuffers[emptyCells], rules);
+		int originalAlpha = alpha, best = -2, bestCell = -1;
+
+		for (int i = 0; i < numMoves; i++) {
+			int x = moves[i] / columns, y = moves[i] % columns;
+			board[x][y] = xTurn ? 'X':'O';
+			int value = -negamax(board, !xTurn, x, y, emptyCells - 1, -beta, -alpha);
+			board[x][y] = ' ';
 
-		// check top-right to bottom-left diagonal
-		consecutive = 0;
-		color = '?';
-		emptyAdjacentSpot = false;
-		for (int i = board.length - 1, a = 0; i >= 0; i--, a++)
-			if (board[i][a] == color)
-				consecutive++;
-			else if (board[i][a] == 'X' || board[i][a] == 'O') {
-				consecutive = 1;
-				color = board[i][a];
+			if (value > best) {
+				best = value;
+				bestCell = moves[i];
 			}
-			else emptyAdjacentSpot = true;
-		if (consecutive == 3 || (consecutive == 2 && emptyAdjacentSpot))
-			return true;
+			if (best > alpha)
+				alpha = best;
+			if (alpha >= beta) {
+				moveOrdering.recordCutoff(moves[i], emptyCells);
+				break;
+			}
+		}
 
-		return false;
+		int bound = best <= originalAlpha ? TicTacToeTranspositionTable.UPPER:best >= beta ? TicTacToeTranspositionTable.LOWER:TicTacToeTranspositionTable.EXACT;
+		if (bound != TicTacToeTranspositionTable.EXACT && !xTurn)
+			bound = bound == TicTacToeTranspositionTable.LOWER ? TicTacToeTranspositionTable.UPPER:TicTacToeTranspositionTable.LOWER;
+		transpositionTable.store(key, best * sign, TicTacToeSymmetry.transformCell(sym, bestCell, rows, columns), emptyCells, bound);
+		return best;
+	}
+
+	/**
+	 * Makes sure there is a move and score buffer for every ply of the board
+	 */
+	private void prepareBuffers(char[][] board) {
+		int cells = board.length * board[0].length;
+		if (moveBuffers.length == cells + 1 && moveBuffers[0].length == cells)
+			return;
+		moveBuffers = new int[cells + 1][cells];
+		scoreBuffers = new int[cells + 1][cells];
+	}
+
+	/**
+	 * This functions returns true if a win is possible
+	 * in the current position, false otherwise. Note that this function
+	 * is not used elsewhere in the program.
+	 * @param  board The current state of the board
+	 * @return       A boolean value true if possible, false otherwise
+	 * @deprecated   Assumes the standard rules, check with a game's rules instead
+	 */
+	@Deprecated
+	public static boolean winPossible(char[][] board) {
+		return TicTacToeRules.standard.gameResult(board) != 0 || TicTacToeRules.standard.getWinningMove(board)[0] != -1;
 	}
 
 	public static boolean identicalBoards(char[][] board1, char[][] board2) {
@@ -507,6 +1117,10 @@ public class TicTacToePlus {
 		if (identical)
 			return true;
 
+		// The remaining symmetries transpose the board, so they only exist for square boards
+		if (board1.length != board1[0].length)
+			return false;
+
 		identical = true;
 		outer:
 		for (int i = 0; i < board1.length; i++)
@@ -556,172 +1170,45 @@ public class TicTacToePlus {
 	 * And returns them as an array of Nodes
 	 * @param  board  The current state of the board
 	 * @param  xTurn  The current turn
-	 * @param  parent The Node that is looking for children
+	 * @param  parent The Node that is looking for children, whose rules they inherit
+	 * @param  random The random numbers to shuffle the moves with
 	 * @return        An array of Nodes
 	 */
-	public static TicTacToeMCTSNode[] getChildrenNodes(char[][] board, boolean xTurn, TicTacToeMCTSNode parent) {
-		ArrayList<TicTacToeMCTSNode> children = new ArrayList<TicTacToeMCTSNode>(board.length * board[0].length);
-
+	public static TicTacToeMCTSNode[] getChildrenNodes(char[][] board, boolean xTurn, TicTacToeMCTSNode parent, TicTacToeRandom random) {
+		int columns = board[0].length, numMoves = 0;
+		int[] moves = new int[board.length * columns];
 		for (int i = 0; i < board.length; i++)
 			for (int a = 0; a < board[i].length; a++)
-				if (board[i][a] == ' ') {
-					board[i][a] = xTurn ? 'X':'O';
-					// Creates a new node with the new board state, different turn, and so on.
-					children.add((int)(Math.random() * children.size()), new TicTacToeMCTSNode(board, !xTurn, parent, new int[] {i, a}, expansionConstant));
-					board[i][a] = ' ';
-				}
-
-		for (int i = 0; i < children.size() - 1; i++)
-			for (int a = i + 1; a < children.size(); a++)
-				if (identicalBoards(children.get(i).board, children.get(a).board)) {
-					children.remove(a);
-					a--;
-				}
-
-		return children.toArray(new TicTacToeMCTSNode[children.size()]);
-	}
-
-	/**
-	 * If there is a move that is winning for a player, return it
-	 * as an int array containing the x and y coordinates
-	 * 
-	 * @param  board The current state of the board
-	 * @return       An array containing the x and y coords
-	 */
-	public static int[] getWinningMove(char[][] board) {
-
-		char color;
-		int consecutive;
-		boolean emptyAdjacentSpot;
-		int[] spotLoc = null;
-
-		// check vertical
-		for (int i = 0; i < board.length; i++) {
-			consecutive = 0;
-			color = '?';
-			emptyAdjacentSpot = false;
-			for (int a = 0; a < board[i].length; a++)
-				if (board[i][a] == color)
-					consecutive++;
-				else if (board[i][a] == 'X' || board[i][a] == 'O') {
-					consecutive = 1;
-					color = board[i][a];
-				}
-				else {
-					emptyAdjacentSpot = true;
-					spotLoc = new int[] {i, a};
-				}
-			if (consecutive == 2 && emptyAdjacentSpot)
-				return spotLoc;
-		}
+				if (board[i][a] == ' ')
+					moves[numMoves++] = i * columns + a;
 
-		// check horizontal
-		for (int a = 0; a < board[0].length; a++) {
-			consecutive = 0;
-			color = '?';
-			emptyAdjacentSpot = false;
-			for (int i = 0; i < board.length; i++)
-				if (board[i][a] == color)
-					consecutive++;
-				else if (board[i][a] == 'X' || board[i][a] == 'O') {
-					consecutive = 1;
-					color = board[i][a];
-				}
-				else {
-					emptyAdjacentSpot = true;
-					spotLoc = new int[] {i, a};
-				}
-			if (consecutive == 2 && emptyAdjacentSpot)
-				return spotLoc;
+		// Shuffle the moves, so that a random one of each group of symmetric moves is kept
+		for (int i = numMoves - 1; i > 0; i--) {
+			int swap = random.nextInt(i + 1), move = moves[i];
+			moves[i] = moves[swap];
+			moves[swap] = move;
 		}
 
-		// check top-left to bottom-right diagonal
-		consecutive = 0;
-		color = '?';
-		emptyAdjacentSpot = false;
-		for (int i = 0, a = 0; i < board.length; i++, a++)
-			if (board[i][a] == color)
-				consecutive++;
-			else if (board[i][a] == 'X' || board[i][a] == 'O') {
-				consecutive = 1;
-				color = board[i][a];
-			}
-			else {
-				emptyAdjacentSpot = true;
-				spotLoc = new int[] {i, a};
+		ArrayList<TicTacToeMCTSNode> children = new ArrayList<TicTacToeMCTSNode>(numMoves);
+		long[] hashes = new long[numMoves];
+		for (int i = 0; i < numMoves; i++) {
+			int x = moves[i] / columns, y = moves[i] % columns;
+			board[x][y] = xTurn ? 'X':'O';
+			// Symmetric boards share a canonical hash, so comparing hashes replaces identicalBoards
+			long hash = TicTacToeSymmetry.canonicalHash(board);
+			boolean symmetric = false;
+			for (int a = 0; a < children.size() && !symmetric; a++)
+				symmetric = hashes[a] == hash;
+			if (!symmetric) {
+				hashes[children.size()] = hash;
+				// Creates a new node with the new board state, different turn, and so on.
+				children.add(new TicTacToeMCTSNode(board, !xTurn, parent, new int[] {x, y}, parent.expansionConstant, parent.rules));
 			}
-		if (consecutive == 2 && emptyAdjacentSpot)
-			return spotLoc;
-
-		// check top-right to bottom-left diagonal
-		consecutive = 0;
-		color = '?';
-		emptyAdjacentSpot = false;
-		for (int i = board.length - 1, a = 0; i >= 0; i--, a++)
-			if (board[i][a] == color)
-				consecutive++;
-			else if (board[i][a] == 'X' || board[i][a] == 'O') {
-				consecutive = 1;
-				color = board[i][a];
-			}
-			else {
-				emptyAdjacentSpot = true;
-				spotLoc = new int[] {i, a};
-			}
-		if (consecutive == 2 && emptyAdjacentSpot)
-			return spotLoc;
-
-		return new int[] {-1, -1};
-	}
-
-	/**
-	 * Returns a random legal move, or a move that is winning
-	 * 
-	 * @param  board The current state of the board
-	 * @return       A random move int he form of an int array [xcoord, ycoord]
-	 */
-	public static int[] getRandomMove(char[][] board, boolean xTurn) {
-		// For a true Monte Carlo solution, comment out the next three lines
-		// so that the simulations will truly be random.
-		if (antiTicTacToe) {
-			antixCoords = new ArrayList<Integer>(board.length * board[0].length);
-			antiyCoords = new ArrayList<Integer>(board.length * board[0].length);
-		}
-		else {
-			int[] victoryMove = getWinningMove(board);
-			if (!antiTicTacToe && victoryMove[0] != -1)
-				return victoryMove;
+			board[x][y] = ' ';
 		}
 
-		ArrayList<Integer> xCoords = new ArrayList<Integer>(board.length * board[0].length);
-		ArrayList<Integer> yCoords = new ArrayList<Integer>(board.length * board[0].length);
-
-		int numPossibleMoves = 0;
-		for (int i = 0; i < board.length; i++)
-			for (int a = 0; a < board[i].length; a++)
-				if (board[i][a] == ' ') {
-					if (antiTicTacToe) {
-						board[i][a] = xTurn ? 'X':'O';
-						if (gameResult(board) == 0) {
-							antixCoords.add(i);
-							antiyCoords.add(a);
-						}
-						board[i][a] = ' ';
-					}
-					xCoords.add(i);
-					yCoords.add(a);
-				}
-
-		if (antiTicTacToe && antixCoords.size() > 0) {
-			int move = (int)(Math.random() * antixCoords.size());
-			return new int[] {antixCoords.get(move), antiyCoords.get(move)};
-		}
-		else {
-			int move = (int)(Math.random() * xCoords.size());
-			return new int[] {xCoords.get(move), yCoords.get(move)};
-		}
+		return children.toArray(new TicTacToeMCTSNode[children.size()]);
 	}
-	static ArrayList<Integer> antixCoords, antiyCoords;
 
 	/**
 	 * If the root doesn't exist, create the root
@@ -734,155 +1221,121 @@ public class TicTacToePlus {
 	 * @return   A new root
 	 */
 	public TicTacToeMCTSNode nextRoot(int x, int y) {
-		if (root == null || root.children == null)
-			return new TicTacToeMCTSNode(board, xTurn, null, null, expansionConstant);
+		if (root == null || root.children() == null) {
+			rootSymmetry = 0;
+			return new TicTacToeMCTSNode(board, xTurn, null, null, expansionConstant, rules);
+		}
+		int rows = board.length, columns = board[0].length;
+		// The move played, on root's board
+		int cell = TicTacToeSymmetry.transformCell(TicTacToeSymmetry.inverse(rootSymmetry), x * columns + y, rows, columns);
 		for (int i = 0; i < root.children.length; i++)
-			if (root.children[i].lastMove[0] == x && root.children[i].lastMove[1] == y) {
+			if (root.children[i].lastMove[0] == cell / columns && root.children[i].lastMove[1] == cell % columns) {
+				if (TicTacToeMetrics.enabled)
+					TicTacToeMetrics.rootReused.increment();
 				root = root.children[i];
 				root.parent = null;
 				return root;
 			}
 
-		return new TicTacToeMCTSNode(board, xTurn, null, null, expansionConstant);
-	}
-
-	/**
-	 * Returns the move coords of the best move, determined by
-	 * the child note with the greatest total trials (To understand
-	 * this better, look up Monte Carlo Tree Search on Wikipedia).
-	 * @param  root The root node
-	 * @return      The move coords of the best move
-	 */
-	public static int[] getBestMove(TicTacToeMCTSNode root) {
-		int[] bestMove = new int[2];
-		int mostTrials = 0;
+		// getChildrenNodes may have kept a symmetric image of the move instead,
+		// whose subtree can be reused by mapping its board onto this one
+		int sym = TicTacToeSymmetry.canonicalSymmetry(board);
+		long hash = TicTacToeSymmetry.hash(board, sym);
 		for (int i = 0; i < root.children.length; i++) {
-			if (root.children[i].totalTrials > mostTrials) {
-				mostTrials = root.children[i].totalTrials;
-				bestMove = root.children[i].lastMove;
+			int childSym = TicTacToeSymmetry.canonicalSymmetry(root.children[i].board);
+			if (TicTacToeSymmetry.hash(root.children[i].board, childSym) == hash) {
+				rootSymmetry = TicTacToeSymmetry.compose(childSym, TicTacToeSymmetry.inverse(sym));
+				if (TicTacToeMetrics.enabled)
+					TicTacToeMetrics.rootReusedSymmetric.increment();
+				root = root.children[i];
+				root.parent = null;
+				return root;
 			}
 		}
-		return bestMove;
-	}
-}
 
-/**
- * This class acts as a single Monte Carlo Tic Tac Toe Node.
- * To understand this better, look up Monte Carlo Tree Search
- * on Wikipedia
- */
-class TicTacToeMCTSNode {
-	public char[][] board;
-	public boolean xTurn;
-	public TicTacToeMCTSNode parent;
-	public int[] lastMove;
-	public double expansionConstant;
-	public int hits, misses, totalTrials;
-	public TicTacToeMCTSNode[] children;
-
-	TicTacToeMCTSNode(char[][] board, boolean xTurn, TicTacToeMCTSNode parent, int[] lastMove, double expansionConstant) {
-		this.board = new char[board.length][board[0].length];
-		for (int i = 0; i < board.length; i++)
-			for (int a = 0; a < board[i].length; a++)
-				this.board[i][a] = board[i][a];
+		rootSymmetry = 0;
+		if (TicTacToeMetrics.enabled)
+			TicTacToeMetrics.rootDiscarded.increment();
+		return new TicTacToeMCTSNode(board, xTurn, null, null, expansionConstant, rules);
+	}
 
-		this.xTurn = xTurn;
-		this.parent = parent;
-		this.lastMove = lastMove;
-		this.expansionConstant = expansionConstant;
-		hits = misses = totalTrials = 0;
+	/**
+	 * Returns the move coords of root's best move on board,
+	 * mapping them back through rootSymmetry
+	 */
+	public int[] getBestMove() {
+		return fromRoot(getBestMove(root));
 	}
 
 	/**
-	 * Evaluates the child's potential
-	 * @param  child The child node to evaluate
-	 * @return       The evaluated potential
+	 * Maps move coords on root's board to the same move on board
 	 */
-	private double childPotential(TicTacToeMCTSNode child) {
-		// This formula can be found on Wikipedia
-		double w = child.misses - child.hits, n = child.totalTrials;
-		return w / n + expansionConstant * Math.sqrt(Math.log(totalTrials) / n);
+	private int[] fromRoot(int[] move) {
+		int rows = board.length, columns = board[0].length;
+		int cell = TicTacToeSymmetry.transformCell(rootSymmetry, move[0] * columns + move[1], rows, columns);
+		return new int[] {cell / columns, cell % columns};
 	}
 
 	/**
-	 * Choose a child, run a simulation if needed, and then 
-	 * backpropogate the results
+	 * Saves root's tree to a file, to be loaded by a later game
+	 *
+	 * @param  file The path of the file
+	 * @return      The number of nodes saved
+	 * @see         TicTacToeTreeSnapshot
 	 */
-	public void chooseChild() {
-		// If the node does not have any children yet, give it children
-		if (children == null)
-			children = TicTacToePlus.getChildrenNodes(board, xTurn, this);
-		// If the node's board represents a completed game, backpropogate the results
-		if (TicTacToePlus.gameOver(board))
-			backPropogate(TicTacToePlus.gameResult(board));
-		else {
-			int countUnexplored = 0;
-			for (int i = 0; i < children.length; i++)
-				if (children[i].totalTrials == 0)
-					countUnexplored++;
-			// If the node has any unexplored children, explore them
-			if (countUnexplored > 0) {
-				TicTacToeMCTSNode[] unexplored = new TicTacToeMCTSNode[countUnexplored];
-				for (int i = 0; i < children.length; i++)
-					if (children[i].totalTrials == 0) {
-						countUnexplored--;
-						unexplored[countUnexplored] = children[i];
-					}
-				// Run a simulation for a random unexplored child
-				unexplored[(int)(Math.random() * unexplored.length)].runSimulation();
-			}
-			// If all the Node's children are explored, call this function in the child
-			// with the best potential (look up on Wikipedia to understand potential)
-			else {
-				TicTacToeMCTSNode bestChild = null;
-				double bestPotential = -1, potential;
-				for (int i = 0; i < children.length; i++) {
-					potential = childPotential(children[i]);
-					if (potential > bestPotential) {
-						bestPotential = potential;
-						bestChild = children[i];
-					}
-				}
-				bestChild.chooseChild();
-			}	
-		}
+	public long saveTree(String file) throws IOException {
+		return TicTacToeTreeSnapshot.save(root, file);
 	}
 
 	/**
-	 * This function backpropogates a simulation result
-	 * all the way to the root node.
-	 * @param result The result of the simulation
+	 * Makes a tree saved by saveTree the root, if it was saved in the
+	 * current position (or a symmetric one) under the same rules
+	 *
+	 * @param  file The path of the file
+	 * @throws IOException If the file can't be read or is of another position
 	 */
-	public void backPropogate(int result) {
-		if ((result > 0 && xTurn) || (result < 0 && !xTurn))
-			hits++;
-		else if (result != 0)
-			misses++;
-		totalTrials++;
-		if (parent != null)
-			parent.backPropogate(result);
+	public void loadTree(String file) throws IOException {
+		if (!useSnapshot(TicTacToeTreeSnapshot.open(file)))
+			throw new IOException(file + " is a snapshot of another position or rules");
 	}
 
 	/**
-	 * Run a single simulation for this node. Note that these simulations
-	 * are not completely random since the getRandomMove function automatically
-	 * returns winning or losing moves. This can be changed by commenting the first
-	 * three lines
+	 * Makes a new tree from the snapshot the root, if the snapshot was
+	 * saved in the current position (or a symmetric one) under the same
+	 * rules. Its nodes are read as the search reaches them.
 	 *
-	 * @see getRandomMove
+	 * @param  snapshot The snapshot, which many games may share
+	 * @return          Whether the snapshot was used
 	 */
-	public void runSimulation() {
-		char[][] boardCopy = new char[board.length][board[0].length];
-		for (int i = 0; i < boardCopy.length; i++)
-			for (int a = 0; a < boardCopy[i].length; a++)
-				boardCopy[i][a] = board[i][a];
-		boolean turn = xTurn;
-		while (!TicTacToePlus.gameOver(boardCopy)) {
-			int[] move = TicTacToePlus.getRandomMove(boardCopy, turn);
-			boardCopy[move[0]][move[1]] = turn ? 'X':'O';
-			turn = !turn;
+	public boolean useSnapshot(TicTacToeTreeSnapshot snapshot) {
+		if (!snapshot.covers(board, rules) || snapshot.xTurn != xTurn)
+			return false;
+		TicTacToeMCTSNode tree = snapshot.root();
+		int treeSym = TicTacToeSymmetry.canonicalSymmetry(tree.board), sym = TicTacToeSymmetry.canonicalSymmetry(board);
+		if (TicTacToeSymmetry.hash(tree.board, treeSym) != TicTacToeSymmetry.hash(board, sym))
+			return false;
+		root = tree;
+		root.children();
+		rootSymmetry = TicTacToeSymmetry.compose(treeSym, TicTacToeSymmetry.inverse(sym));
+		return true;
+	}
+
+	/**
+	 * Returns the move coords of the best move, determined by
+	 * the child note with the greatest total trials (To understand
+	 * this better, look up Monte Carlo Tree Search on Wikipedia).
+	 * @param  root The root node
+	 * @return      The move coords of the best move
+	 */
+	public static int[] getBestMove(TicTacToeMCTSNode root) {
+		int[] bestMove = new int[2];
+		int mostTrials = 0;
+		for (int i = 0; i < root.children.length; i++) {
+			if (root.children[i].stats.totalTrials > mostTrials) {
+				mostTrials = root.children[i].stats.totalTrials;
+				bestMove = root.children[i].lastMove;
+			}
 		}
-		// Backpropogate the result of the simulation
-		backPropogate(TicTacToePlus.gameResult(boardCopy));
+		return bestMove;
 	}
 }
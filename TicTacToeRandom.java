@@ -0,0 +1,84 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A fast, seedable random number generator (SplitMix64) for the
+ * searches and playouts. It isn't thread safe: every thread that
+ * searches gets its own generator, split off the game's one in a fixed
+ * order, so two searches started with the same seed make the same
+ * random choices and so pick the same moves.
+ *
+ * That holds for the sequential searches and root parallelism, which
+ * give each thread its own tree. It doesn't for tree parallelism or
+ * pondering, where the order the threads reach the shared tree in
+ * changes the search, or for a move time limit, which stops after
+ * however many trials fit, unless the game's replay is set to take the
+ * threads' trials in turn and go without both. It never does for a
+ * shared search cache, whose entries depend on other games.
+ *
+ * @since October 17th, 2026
+ */
+public final class TicTacToeRandom {
+
+	private static final ThreadLocal<TicTacToeRandom> randoms = ThreadLocal.withInitial(TicTacToeRandom::new);
+
+	private final long seed;
+	private long state;
+
+	/**
+	 * Creates a generator with a random seed
+	 */
+	public TicTacToeRandom() {
+		this(ThreadLocalRandom.current().nextLong());
+	}
+
+	public TicTacToeRandom(long seed) {
+		this.seed = seed;
+		state = seed;
+	}
+
+	/**
+	 * Returns the current thread's generator, which has a random seed, for
+	 * searches that aren't passed one
+	 */
+	public static TicTacToeRandom current() {
+		return randoms.get();
+	}
+
+	/**
+	 * Returns the seed the generator was created with, which makes a new
+	 * generator with the same numbers
+	 */
+	public long seed() {
+		return seed;
+	}
+
+	public long nextLong() {
+		long z = state += 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns a number from 0 up to but not including bound. It takes a
+	 * multiply and a shift instead of a division, and is biased by less
+	 * than bound / 2^32, which doesn't matter for boards.
+	 */
+	public int nextInt(int bound) {
+		return (int)(((nextLong() >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * Returns a number from 0 up to but not including 1
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Returns a new generator seeded from this one, for another thread
+	 */
+	public TicTacToeRandom split() {
+		return new TicTacToeRandom(nextLong());
+	}
+}
@@ -0,0 +1,410 @@
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solves every position of an m,n,k game for boards too big for
+ * TicTacToeTablebase.generate, working backwards one level (number of
+ * stones) at a time: a level's positions are valued from the level
+ * above it, starting from the full board. Each level is split up
+ * between the threads of a fork join pool.
+ *
+ * Positions are stored as two long masks of stones, and each level's
+ * positions are numbered densely by rank: the rank of the set of
+ * occupied cells, then of which of them are X's, in the combinatorial
+ * number system. X moves first, so a level with L stones has
+ * (L + 1) / 2 X's.
+ *
+ * Finished levels are written to a work directory as level-L.bin
+ * files, a small header and then one tablebase entry per position, so
+ * only two levels are mapped into memory at a time. A level is only
+ * renamed into place once it is complete, so an interrupted solve
+ * resumes from the last finished level. The levels are then joined
+ * into a RANKED TicTacToeTablebase file.
+ *
+ *     java TicTacToeRetrograde rows columns winLength [anti] [directory] [threads]
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeRetrograde {
+
+	public static final int LEVEL_MAGIC = 0x5454544C;
+	public static final int LEVEL_HEADER_SIZE = 32;
+
+	/**
+	 * The largest board that fits in the long masks
+	 */
+	public static final int maxCells = 62;
+
+	/**
+	 * The number of positions a fork join task solves without splitting
+	 */
+	private static final int chunkSize = 1 << 14;
+
+	/**
+	 * binomials[n][k] is n choose k
+	 */
+	private static final long[][] binomials = new long[maxCells + 2][maxCells + 2];
+
+	static {
+		for (int n = 0; n < binomials.length; n++) {
+			binomials[n][0] = 1;
+			for (int k = 1; k <= n; k++)
+				binomials[n][k] = binomials[n - 1][k - 1] + binomials[n - 1][k];
+		}
+	}
+
+	public final int rows, columns, winLength, cells;
+	public final boolean anti;
+	private final Path directory;
+	/**
+	 * Every line of winLength cells, as a mask
+	 */
+	private final long[] lines;
+
+	/**
+	 * The positions solved and the time spent solving them, not
+	 * counting levels that were resumed from disk
+	 */
+	public long positionsSolved, solveNanos;
+
+	public TicTacToeRetrograde(int rows, int columns, int winLength, boolean anti, String directory) {
+		if (rows * columns > maxCells)
+			throw new IllegalArgumentException("Boards bigger than " + maxCells + " cells don't fit in a long");
+		if (totalPositions(rows * columns) > Integer.MAX_VALUE - TicTacToeTablebase.HEADER_SIZE)
+			throw new IllegalArgumentException("A " + rows + "x" + columns + " tablebase is too big to map into memory");
+		this.rows = rows;
+		this.columns = columns;
+		this.winLength = winLength;
+		this.anti = anti;
+		this.directory = Paths.get(directory);
+		cells = rows * columns;
+
+		int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+		long[] lines = new long[cells * directions.length];
+		int numLines = 0;
+		for (int i = 0; i < rows; i++)
+			for (int a = 0; a < columns; a++)
+				for (int d = 0; d < directions.length; d++) {
+					int endX = i + directions[d][0] * (winLength - 1), endY = a + directions[d][1] * (winLength - 1);
+					if (endX < 0 || endX >= rows || endY < 0 || endY >= columns)
+						continue;
+					long line = 0;
+					for (int s = 0; s < winLength; s++)
+						line |= 1L << ((i + directions[d][0] * s) * columns + a + directions[d][1] * s);
+					lines[numLines++] = line;
+				}
+		this.lines = Arrays.copyOf(lines, numLines);
+	}
+
+	public static void main(String... pumpkins) throws IOException {
+		int rows = Integer.parseInt(pumpkins[0]), columns = Integer.parseInt(pumpkins[1]), winLength = Integer.parseInt(pumpkins[2]);
+		boolean anti = pumpkins.length > 3 && Boolean.parseBoolean(pumpkins[3]);
+		String directory = pumpkins.length > 4 ? pumpkins[4]:".";
+		int threads = pumpkins.length > 5 ? Integer.parseInt(pumpkins[5]):Runtime.getRuntime().availableProcessors();
+
+		TicTacToeRetrograde solver = new TicTacToeRetrograde(rows, columns, winLength, anti, directory);
+		String file = directory + "/" + TicTacToeTablebase.fileName(rows, columns, winLength, anti);
+		solver.solve(threads, file);
+		System.out.printf("%s: %d positions, %.0f positions/s%n", file, totalPositions(solver.cells),
+			solver.positionsSolved / Math.max(solver.solveNanos / 1e9, 1e-9));
+	}
+
+	/**
+	 * Returns n choose k
+	 */
+	public static long binomial(int n, int k) {
+		return k < 0 || k > n ? 0:binomials[n][k];
+	}
+
+	/**
+	 * Returns the number of positions with level stones on the board
+	 */
+	public static long levelSize(int cells, int level) {
+		return binomial(cells, level) * binomial(level, (level + 1) / 2);
+	}
+
+	/**
+	 * Returns the number of positions in every level together
+	 */
+	public static long totalPositions(int cells) {
+		long total = 0;
+		for (int level = 0; level <= cells; level++)
+			total += levelSize(cells, level);
+		return total;
+	}
+
+	/**
+	 * Returns the index of a position within its level
+	 *
+	 * @param  cells The number of cells on the board
+	 * @param  xBits The cells with an X
+	 * @param  oBits The cells with an O
+	 * @return       The position's rank
+	 */
+	public static long rank(int cells, long xBits, long oBits) {
+		long occupied = xBits | oBits, setRank = 0, xRank = 0;
+		int stones = 0, xCount = 0;
+		for (int cell = 0; cell < cells; cell++)
+			if ((occupied & 1L << cell) != 0) {
+				setRank += binomials[cell][++stones];
+				if ((xBits & 1L << cell) != 0)
+					xRank += binomials[stones - 1][++xCount];
+			}
+		return setRank * binomials[stones][xCount] + xRank;
+	}
+
+	/**
+	 * The inverse of rank, returning the X's and O's as {xBits, oBits}
+	 */
+	public static void unrank(int cells, int level, long index, long[] position) {
+		int xCount = (level + 1) / 2;
+		long setRank = index / binomials[level][xCount], xRank = index % binomials[level][xCount];
+
+		long occupied = 0;
+		for (int j = level, cell = cells - 1; j > 0; j--, cell--) {
+			while (binomials[cell][j] > setRank)
+				cell--;
+			occupied |= 1L << cell;
+			setRank -= binomials[cell][j];
+		}
+		long xPositions = 0;
+		for (int j = xCount, p = level - 1; j > 0; j--, p--) {
+			while (binomials[p][j] > xRank)
+				p--;
+			xPositions |= 1L << p;
+			xRank -= binomials[p][j];
+		}
+
+		// The X positions count through the occupied cells in order
+		long xBits = 0;
+		for (int p = 0, cell = 0; p < level; p++, cell++) {
+			while ((occupied & 1L << cell) == 0)
+				cell++;
+			if ((xPositions & 1L << p) != 0)
+				xBits |= 1L << cell;
+		}
+		position[0] = xBits;
+		position[1] = occupied & ~xBits;
+	}
+
+	private boolean hasLine(long bits) {
+		for (int i = 0; i < lines.length; i++)
+			if ((bits & lines[i]) == lines[i])
+				return true;
+		return false;
+	}
+
+	/**
+	 * Solves every level that isn't on disk yet, then joins them into
+	 * a tablebase file and deletes the level files
+	 *
+	 * @param threads The number of fork join threads
+	 * @param file    The path of the tablebase to write
+	 */
+	public void solve(int threads, String file) throws IOException {
+		Files.createDirectories(directory);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			for (int level = cells; level >= 0; level--) {
+				if (levelDone(level))
+					continue;
+				long start = System.nanoTime();
+				solveLevel(pool, level);
+				long nanos = System.nanoTime() - start;
+				positionsSolved += levelSize(cells, level);
+				solveNanos += nanos;
+				System.out.printf("level %d: %d positions, %.0f positions/s%n", level, levelSize(cells, level), levelSize(cells, level) / Math.max(nanos / 1e9, 1e-9));
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+		writeTablebase(file);
+		for (int level = 0; level <= cells; level++)
+			Files.deleteIfExists(levelPath(level));
+	}
+
+	private Path levelPath(int level) {
+		return directory.resolve("level-" + level + ".bin");
+	}
+
+	/**
+	 * Returns true if the level's file is complete and was made for this game
+	 */
+	private boolean levelDone(int level) throws IOException {
+		Path path = levelPath(level);
+		if (!Files.exists(path) || Files.size(path) != LEVEL_HEADER_SIZE + levelSize(cells, level))
+			return false;
+		try (RandomAccessFile input = new RandomAccessFile(path.toFile(), "r")) {
+			return input.readInt() == LEVEL_MAGIC && input.readByte() == rows && input.readByte() == columns
+				&& input.readByte() == winLength && input.readByte() == (anti ? 1:0) && input.readInt() == level;
+		}
+	}
+
+	private void solveLevel(ForkJoinPool pool, int level) throws IOException {
+		long size = levelSize(cells, level);
+		Path temporary = directory.resolve("level-" + level + ".tmp");
+		try (RandomAccessFile output = new RandomAccessFile(temporary.toFile(), "rw")) {
+			output.setLength(0);
+			output.writeInt(LEVEL_MAGIC);
+			output.writeByte(rows);
+			output.writeByte(columns);
+			output.writeByte(winLength);
+			output.writeByte(anti ? 1:0);
+			output.writeInt(level);
+			output.writeLong(size);
+			output.setLength(LEVEL_HEADER_SIZE + size);
+
+			MappedByteBuffer next = null;
+			RandomAccessFile input = null;
+			if (level < cells) {
+				input = new RandomAccessFile(levelPath(level + 1).toFile(), "r");
+				next = input.getChannel().map(FileChannel.MapMode.READ_ONLY, LEVEL_HEADER_SIZE, levelSize(cells, level + 1));
+			}
+			try {
+				MappedByteBuffer entries = output.getChannel().map(FileChannel.MapMode.READ_WRITE, LEVEL_HEADER_SIZE, size);
+				pool.invoke(new LevelTask(level, 0, size, next, entries));
+				entries.force();
+			}
+			finally {
+				if (input != null)
+					input.close();
+			}
+		}
+		// Only a complete level gets the name levelDone looks for
+		Files.move(temporary, levelPath(level), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Solves the positions of a level with ranks from start to end,
+	 * splitting the range in half until it is small enough
+	 */
+	private class LevelTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int level;
+		private final long start, end;
+		private final MappedByteBuffer next, entries;
+
+		LevelTask(int level, long start, long end, MappedByteBuffer next, MappedByteBuffer entries) {
+			this.level = level;
+			this.start = start;
+			this.end = end;
+			this.next = next;
+			this.entries = entries;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start > chunkSize) {
+				long middle = (start + end) >>> 1;
+				invokeAll(new LevelTask(level, start, middle, next, entries), new LevelTask(level, middle, end, next, entries));
+				return;
+			}
+			byte[] chunk = new byte[(int)(end - start)];
+			long[] position = new long[2];
+			long[] lowSet = new long[cells], highSet = new long[cells], lowX = new long[cells], highXIfO = new long[cells], highXIfX = new long[cells];
+			for (long index = start; index < end; index++) {
+				unrank(cells, level, index, position);
+				chunk[(int)(index - start)] = solvePosition(position[0], position[1], lowSet, highSet, lowX, highXIfO, highXIfX);
+			}
+			entries.put((int)start, chunk);
+		}
+
+		/**
+		 * Values a position from the level above. The children's ranks are
+		 * worked out from sums over the stones before and after each empty
+		 * cell, so that each child takes constant time instead of a new rank.
+		 */
+		private byte solvePosition(long xBits, long oBits, long[] lowSet, long[] highSet, long[] lowX, long[] highXIfO, long[] highXIfX) {
+			if (hasLine(xBits))
+				return TicTacToeTablebase.entry(anti ? -1:1, -1);
+			if (hasLine(oBits))
+				return TicTacToeTablebase.entry(anti ? 1:-1, -1);
+			if (level == cells)
+				return TicTacToeTablebase.entry(0, -1);
+
+			long occupied = xBits | oBits;
+			boolean xTurn = (level & 1) == 0;
+			int xCount = (level + 1) / 2;
+
+			// The stones before each cell keep their place in the child's ranks
+			long setSum = 0, xSum = 0;
+			for (int cell = 0, stones = 0, xs = 0; cell < cells; cell++) {
+				lowSet[cell] = setSum;
+				lowX[cell] = xSum;
+				if ((occupied & 1L << cell) != 0) {
+					setSum += binomials[cell][++stones];
+					if ((xBits & 1L << cell) != 0)
+						xSum += binomials[stones - 1][++xs];
+				}
+			}
+			// While the stones after it move up a place
+			setSum = 0;
+			long xSumIfO = 0, xSumIfX = 0;
+			for (int cell = cells - 1, stones = level, xs = xCount; cell >= 0; cell--) {
+				highSet[cell] = setSum;
+				highXIfO[cell] = xSumIfO;
+				highXIfX[cell] = xSumIfX;
+				if ((occupied & 1L << cell) != 0) {
+					setSum += binomials[cell][stones + 1];
+					if ((xBits & 1L << cell) != 0) {
+						xSumIfO += binomials[stones][xs];
+						xSumIfX += binomials[stones][xs + 1];
+						xs--;
+					}
+					stones--;
+				}
+			}
+
+			int value = xTurn ? -2:2, bestCell = -1, childXCount = xCount + (xTurn ? 1:0);
+			long xPositions = binomials[level + 1][childXCount];
+			for (int cell = 0, stones = 0, xs = 0; cell < cells; cell++) {
+				if ((occupied & 1L << cell) != 0) {
+					stones++;
+					if ((xBits & 1L << cell) != 0)
+						xs++;
+					continue;
+				}
+				long setRank = lowSet[cell] + binomials[cell][stones + 1] + highSet[cell];
+				long xRank = lowX[cell] + (xTurn ? binomials[stones][xs + 1] + highXIfX[cell]:highXIfO[cell]);
+				int childValue = TicTacToeTablebase.value(next.get((int)(setRank * xPositions + xRank)));
+				if ((xTurn && childValue > value) || (!xTurn && childValue < value)) {
+					value = childValue;
+					bestCell = cell;
+				}
+			}
+			return TicTacToeTablebase.entry(value, bestCell);
+		}
+	}
+
+	/**
+	 * Joins the level files, from the empty board up, into a RANKED tablebase
+	 */
+	private void writeTablebase(String file) throws IOException {
+		try (FileOutputStream output = new FileOutputStream(file)) {
+			DataOutputStream header = new DataOutputStream(output);
+			TicTacToeTablebase.writeHeader(header, rows, columns, winLength, anti, false, TicTacToeTablebase.RANKED, totalPositions(cells));
+			header.flush();
+			FileChannel channel = output.getChannel();
+			for (int level = 0; level <= cells; level++)
+				try (FileChannel input = FileChannel.open(levelPath(level))) {
+					long size = levelSize(cells, level);
+					for (long done = 0; done < size; )
+						done += input.transferTo(LEVEL_HEADER_SIZE + done, size - done, channel);
+				}
+		}
+	}
+}
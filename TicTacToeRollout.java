@@ -0,0 +1,129 @@
+/**
+ * Runs Monte Carlo playouts on boards that aren't 3x3 without
+ * allocating anything. Each thread gets its own scratch board and list
+ * of empty cells through get(). A playout copies the position into them,
+ * then plays moves in place, using the same policy as
+ * TicTacToeRules.getRandomMove.
+ *
+ * 3x3 boards are played on bitboards instead, see TicTacToeBitboard.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeRollout {
+
+	private static final ThreadLocal<TicTacToeRollout> rollouts = ThreadLocal.withInitial(TicTacToeRollout::new);
+
+	private char[][] board = new char[0][0];
+	/**
+	 * The cell indices of the empty cells, in the first numEmpty spots
+	 */
+	private int[] empty = new int[0];
+	private int numEmpty;
+
+	/**
+	 * Returns the current thread's rollout
+	 */
+	public static TicTacToeRollout get() {
+		return rollouts.get();
+	}
+
+	/**
+	 * Plays random moves from the passed position until the game ends.
+	 * Each variant of the rules has its own loop, so neither one checks
+	 * which rules it is playing.
+	 *
+	 * @param  start  The position to play from, which is not changed
+	 * @param  xTurn  Whether or not it is the X's turn currently
+	 * @param  result The result of the game at the start position
+	 * @param  rules  The rules the game is played by
+	 * @param  random The random numbers to pick moves with
+	 * @return        The result of the game at the end of the playout
+	 */
+	public int run(char[][] start, boolean xTurn, int result, TicTacToeRules rules, TicTacToeRandom random) {
+		prepare(start);
+		return rules.anti ? runAnti(xTurn, result, rules, random):run(xTurn, result, rules, random);
+	}
+
+	private int run(boolean xTurn, int result, TicTacToeRules rules, TicTacToeRandom random) {
+		int columns = board[0].length;
+		while (result == 0 && numEmpty > 0) {
+			int index = randomMove(random, rules);
+			int cell = empty[index], x = cell / columns, y = cell % columns;
+			// Remove the move from the list of empty cells by swapping in the last one
+			empty[index] = empty[--numEmpty];
+			board[x][y] = xTurn ? 'X':'O';
+			result = rules.gameResult(board, x, y);
+			xTurn = !xTurn;
+		}
+		return result;
+	}
+
+	private int runAnti(boolean xTurn, int result, TicTacToeRules rules, TicTacToeRandom random) {
+		int columns = board[0].length;
+		while (result == 0 && numEmpty > 0) {
+			int index = randomAntiMove(xTurn, random, rules);
+			int cell = empty[index], x = cell / columns, y = cell % columns;
+			empty[index] = empty[--numEmpty];
+			board[x][y] = xTurn ? 'X':'O';
+			result = rules.gameResult(board, x, y);
+			xTurn = !xTurn;
+		}
+		return result;
+	}
+
+	/**
+	 * Copies the position into the scratch board, only allocating
+	 * when a board of different dimensions than before is passed
+	 */
+	private void prepare(char[][] start) {
+		int rows = start.length, columns = start[0].length;
+		if (board.length != rows || board[0].length != columns) {
+			board = new char[rows][columns];
+			empty = new int[rows * columns];
+		}
+		numEmpty = 0;
+		for (int i = 0; i < rows; i++) {
+			System.arraycopy(start[i], 0, board[i], 0, columns);
+			for (int a = 0; a < columns; a++)
+				if (start[i][a] == ' ')
+					empty[numEmpty++] = i * columns + a;
+		}
+	}
+
+	/**
+	 * Returns the index in empty of a move that wins for either player
+	 * (like getWinningMove), or of a random move if there isn't one
+	 */
+	private int randomMove(TicTacToeRandom random, TicTacToeRules rules) {
+		int columns = board[0].length;
+		for (int index = 0; index < numEmpty; index++) {
+			int x = empty[index] / columns, y = empty[index] % columns;
+			board[x][y] = 'X';
+			boolean winning = rules.gameResult(board, x, y) != 0;
+			board[x][y] = 'O';
+			winning = winning || rules.gameResult(board, x, y) != 0;
+			board[x][y] = ' ';
+			if (winning)
+				return index;
+		}
+		return random.nextInt(numEmpty);
+	}
+
+	/**
+	 * Returns the index in empty of a random move that doesn't complete a
+	 * line for the player moving, or of any random move if they all do
+	 */
+	private int randomAntiMove(boolean xTurn, TicTacToeRandom random, TicTacToeRules rules) {
+		int columns = board[0].length, safeMoves = 0, choice = -1;
+		for (int index = 0; index < numEmpty; index++) {
+			int x = empty[index] / columns, y = empty[index] % columns;
+			board[x][y] = xTurn ? 'X':'O';
+			boolean safe = rules.gameResult(board, x, y) == 0;
+			board[x][y] = ' ';
+			// Reservoir sampling picks a random safe move in one pass
+			if (safe && random.nextInt(++safeMoves) == 0)
+				choice = index;
+		}
+		return choice != -1 ? choice:random.nextInt(numEmpty);
+	}
+}
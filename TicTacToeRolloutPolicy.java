@@ -0,0 +1,164 @@
+/**
+ * How the moves of a 3x3 bitboard playout are picked. Each policy has a
+ * loop for the normal rules and one for Anti Tic Tac Toe, which the
+ * rules pick between once per playout, and the policy a game plays
+ * with is part of its TicTacToeRules.
+ *
+ *   - heuristic plays a move that completes any line (the first one
+ *     getWinningCell finds, which may be a block when there is a win),
+ *     and otherwise a random move. Under anti rules it plays a random
+ *     move that doesn't complete one of its own lines.
+ *   - threats looks up the cells that complete a line for each side in
+ *     a table indexed by that side's stones, so each move takes a few
+ *     lookups instead of a scan of every line. It wins if it can, then
+ *     blocks, and otherwise plays a random move, picked from the empty
+ *     cells with a table too. Under anti rules it avoids its own threat
+ *     cells like heuristic does.
+ *
+ *     java TicTacToeBenchmark policy [playouts]
+ *
+ * compares their speed and how well searches using them play.
+ *
+ * @since October 17th, 2026
+ */
+public abstract class TicTacToeRolloutPolicy {
+
+	public static final TicTacToeRolloutPolicy heuristic = new Heuristic(), threats = new Threats();
+
+	/**
+	 * The policy of the rules made without one, the heuristic the
+	 * playouts have always used. threats is only used by rules made
+	 * with it, such as rules.withPolicy(threats).
+	 */
+	public static final TicTacToeRolloutPolicy standard = heuristic;
+
+	public final String name;
+
+	private TicTacToeRolloutPolicy(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns the cell to play under normal rules
+	 *
+	 * @param  xBits  The X stones
+	 * @param  oBits  The O stones
+	 * @param  xTurn  Whether or not it is the X's turn currently
+	 * @param  random The random numbers to pick moves with
+	 * @return        The cell index of the move
+	 */
+	public abstract int cell(int xBits, int oBits, boolean xTurn, TicTacToeRandom random);
+
+	/**
+	 * Returns the cell to play under Anti Tic Tac Toe rules
+	 */
+	public abstract int antiCell(int xBits, int oBits, boolean xTurn, TicTacToeRandom random);
+
+	/**
+	 * Plays moves picked by cell from the position until the game ends,
+	 * without allocating anything
+	 *
+	 * @return The result of the game at the end of the playout
+	 */
+	public final int playout(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+		while (!TicTacToeBitboard.gameOver(xBits, oBits)) {
+			int move = 1 << cell(xBits, oBits, xTurn, random);
+			if (xTurn)
+				xBits |= move;
+			else oBits |= move;
+			xTurn = !xTurn;
+		}
+		return TicTacToeBitboard.gameResult(xBits, oBits, false);
+	}
+
+	/**
+	 * Plays moves picked by antiCell from the position until the game ends
+	 */
+	public final int antiPlayout(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+		while (!TicTacToeBitboard.gameOver(xBits, oBits)) {
+			int move = 1 << antiCell(xBits, oBits, xTurn, random);
+			if (xTurn)
+				xBits |= move;
+			else oBits |= move;
+			xTurn = !xTurn;
+		}
+		return TicTacToeBitboard.gameResult(xBits, oBits, true);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * The policy the playouts have always used, see TicTacToeBitboard.getRandomCell
+	 */
+	static final class Heuristic extends TicTacToeRolloutPolicy {
+
+		Heuristic() {
+			super("heuristic");
+		}
+
+		public int cell(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+			return TicTacToeBitboard.getRandomCell(xBits, oBits, random);
+		}
+
+		public int antiCell(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+			return TicTacToeBitboard.getRandomAntiCell(xBits, oBits, xTurn, random);
+		}
+	}
+
+	/**
+	 * Wins, then blocks, then random moves, all from lookup tables
+	 */
+	static final class Threats extends TicTacToeRolloutPolicy {
+
+		/**
+		 * threatCells[bits] is the mask of the cells that would complete
+		 * a line for a side with the stones in bits, whether or not the
+		 * cells are empty
+		 */
+		private static final short[] threatCells = new short[1 << TicTacToeBitboard.numCells];
+		/**
+		 * nthCells[mask * numCells + n] is the cell of the nth set bit of mask
+		 */
+		private static final byte[] nthCells = new byte[(1 << TicTacToeBitboard.numCells) * TicTacToeBitboard.numCells];
+
+		static {
+			for (int bits = 0; bits < threatCells.length; bits++) {
+				for (int cell = 0; cell < TicTacToeBitboard.numCells; cell++)
+					if ((bits & (1 << cell)) == 0 && TicTacToeBitboard.hasWin(bits | (1 << cell)))
+						threatCells[bits] |= 1 << cell;
+				for (int n = 0; n < Integer.bitCount(bits); n++)
+					nthCells[bits * TicTacToeBitboard.numCells + n] = (byte)TicTacToeBitboard.nthCell(bits, n);
+			}
+		}
+
+		Threats() {
+			super("threats");
+		}
+
+		/**
+		 * Returns a random cell of the (non empty) mask
+		 */
+		private static int randomCell(int mask, TicTacToeRandom random) {
+			return nthCells[mask * TicTacToeBitboard.numCells + random.nextInt(Integer.bitCount(mask))];
+		}
+
+		public int cell(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+			int empty = TicTacToeBitboard.fullBoard & ~(xBits | oBits);
+			int moves = threatCells[xTurn ? xBits:oBits] & empty;
+			if (moves == 0)
+				moves = threatCells[xTurn ? oBits:xBits] & empty;
+			if (moves == 0)
+				moves = empty;
+			return randomCell(moves, random);
+		}
+
+		public int antiCell(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+			int empty = TicTacToeBitboard.fullBoard & ~(xBits | oBits);
+			int safe = empty & ~threatCells[xTurn ? xBits:oBits];
+			return randomCell(safe != 0 ? safe:empty, random);
+		}
+	}
+}
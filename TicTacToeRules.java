@@ -0,0 +1,334 @@
+/**
+ * The rules of an m,n,k game: the number of stones in a row needed to
+ * win (the k), and whether it is Anti Tic Tac Toe, where the player who
+ * completes a line loses. Rules are immutable and every game, tree and
+ * playout carries the rules it is played by, so games under different
+ * rules can run at the same time on different threads.
+ *
+ * Each variant is its own final subclass, so the playouts and result
+ * checks don't test which variant they are playing: a search only ever
+ * sees one class of rules, which the JIT inlines. The rules also hold
+ * the policy their 3x3 playouts pick moves with, which doesn't change
+ * the game, so rules with different policies are still equal.
+ *
+ * @since October 17th, 2026
+ */
+public abstract class TicTacToeRules {
+
+	/**
+	 * Regular 3 in a row Tic Tac Toe
+	 */
+	public static final TicTacToeRules standard = new Normal(3, TicTacToeRolloutPolicy.standard);
+
+	/**
+	 * The directions a line can go in, as {dx, dy} pairs
+	 */
+	private static final int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+	/**
+	 * The number of stones in a row needed to win (the k of an m,n,k
+	 * game). Eg: 4 for connect-4 on a 7x7 board.
+	 */
+	public final int winLength;
+	/**
+	 * Anti Tic Tac Toe is a game where the goal is
+	 * for your opponent to win a game of Tic Tac Toe
+	 */
+	public final boolean anti;
+	/**
+	 * How the moves of 3x3 playouts are picked
+	 */
+	public final TicTacToeRolloutPolicy policy;
+
+	private TicTacToeRules(int winLength, boolean anti, TicTacToeRolloutPolicy policy) {
+		if (winLength < 1)
+			throw new IllegalArgumentException("The win length must be positive");
+		this.winLength = winLength;
+		this.anti = anti;
+		this.policy = policy;
+	}
+
+	/**
+	 * Returns the rules for k in a row, normal or anti
+	 */
+	public static TicTacToeRules of(int winLength, boolean anti) {
+		return of(winLength, anti, TicTacToeRolloutPolicy.standard);
+	}
+
+	/**
+	 * Returns the rules for k in a row, normal or anti, with 3x3
+	 * playouts picking their moves with the passed policy
+	 */
+	public static TicTacToeRules of(int winLength, boolean anti, TicTacToeRolloutPolicy policy) {
+		if (winLength == 3 && !anti && policy == standard.policy)
+			return standard;
+		return anti ? new Anti(winLength, policy):new Normal(winLength, policy);
+	}
+
+	/**
+	 * Returns the same rules with another playout policy
+	 */
+	public TicTacToeRules withPolicy(TicTacToeRolloutPolicy policy) {
+		return of(winLength, anti, policy);
+	}
+
+	/**
+	 * Returns the game result for a line of the passed color
+	 */
+	public abstract int resultFor(char color);
+
+	/**
+	 * The bitboard equivalent of gameResult, see TicTacToeBitboard
+	 */
+	public abstract int gameResult(int xBits, int oBits);
+
+	/**
+	 * Plays a bitboard playout with the rules' policy
+	 */
+	public abstract int playout(int xBits, int oBits, boolean xTurn, TicTacToeRandom random);
+
+	/**
+	 * Returns a random legal move, playing the moves that decide the
+	 * game like a player that isn't entirely random would. 3x3 boards
+	 * are played with the rules' policy.
+	 *
+	 * @param  board  The current state of the board
+	 * @param  xTurn  Whether or not it is the X's turn currently
+	 * @param  random The random numbers to pick the move with
+	 * @return        A random move in the form of an int array [xcoord, ycoord]
+	 */
+	public abstract int[] getRandomMove(char[][] board, boolean xTurn, TicTacToeRandom random);
+
+	/**
+	 * Returns true if the board is 3x3 Tic Tac Toe, which
+	 * can be played using TicTacToeBitboard
+	 */
+	public boolean bitboard(char[][] board) {
+		return winLength == 3 && TicTacToeBitboard.fits(board);
+	}
+
+	/**
+	 * This function checks if the game is win
+	 * on the board, returing either a -1 (circles win),
+	 * 1 (Xs win), or 0 (neither won). 3x3 boards are
+	 * converted to a bitboard, see TicTacToeBitboard.
+	 *
+	 * @return int Result of game
+	 */
+	public int gameResult(char[][] board) {
+		if (bitboard(board))
+			return gameResult(TicTacToeBitboard.bits(board, 'X'), TicTacToeBitboard.bits(board, 'O'));
+
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < board[i].length; a++)
+				if (board[i][a] == 'X' || board[i][a] == 'O')
+					for (int d = 0; d < directions.length; d++)
+						if (1 + countInDirection(board, i, a, directions[d][0], directions[d][1], board[i][a]) >= winLength)
+							return resultFor(board[i][a]);
+		return 0;
+	}
+
+	/**
+	 * This function checks if the last move played won the game. Only
+	 * the lines through the last move are checked, so this costs O(k)
+	 * instead of a scan of the whole board.
+	 *
+	 * @param  board The current state of the board
+	 * @param  x     The x coord of the last move
+	 * @param  y     The y coord of the last move
+	 * @return       Result of game, see gameResult(char[][])
+	 */
+	public int gameResult(char[][] board, int x, int y) {
+		char color = board[x][y];
+		if (color != 'X' && color != 'O')
+			return 0;
+		for (int d = 0; d < directions.length; d++) {
+			int dx = directions[d][0], dy = directions[d][1];
+			if (1 + countInDirection(board, x, y, dx, dy, color) + countInDirection(board, x, y, -dx, -dy, color) >= winLength)
+				return resultFor(color);
+		}
+		return 0;
+	}
+
+	/**
+	 * Counts the stones of the passed color in a row starting next to
+	 * board[x][y] and going in the direction (dx, dy), stopping early
+	 * once the count can no longer matter
+	 */
+	private int countInDirection(char[][] board, int x, int y, int dx, int dy, char color) {
+		int count = 0;
+		for (x += dx, y += dy; count < winLength - 1 && x >= 0 && x < board.length && y >= 0 && y < board[x].length && board[x][y] == color; x += dx, y += dy)
+			count++;
+		return count;
+	}
+
+	/**
+	 * This function returns true if the game is over,
+	 * false otherwise
+	 *
+	 * @param  board   The current state of the board
+	 * @return boolean Whether or not game is over
+	 */
+	public boolean gameOver(char[][] board) {
+		if (bitboard(board))
+			return TicTacToeBitboard.gameOver(TicTacToeBitboard.bits(board, 'X'), TicTacToeBitboard.bits(board, 'O'));
+
+		if (gameResult(board) != 0)
+			return true;
+
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < board[i].length; a++)
+				if (board[i][a] == ' ')
+					return false;
+
+		return true;
+	}
+
+	/**
+	 * If there is a move that completes a line for either player,
+	 * return it as an int array containing the x and y coordinates
+	 *
+	 * @param  board The current state of the board
+	 * @return       An array containing the x and y coords, or -1s
+	 */
+	public int[] getWinningMove(char[][] board) {
+		if (bitboard(board)) {
+			int cell = TicTacToeBitboard.getWinningCell(TicTacToeBitboard.bits(board, 'X'), TicTacToeBitboard.bits(board, 'O'));
+			if (cell == -1)
+				return new int[] {-1, -1};
+			return new int[] {cell / TicTacToeBitboard.size, cell % TicTacToeBitboard.size};
+		}
+
+		// Try both colors on every empty spot, checking only the lines through it
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < board[i].length; a++)
+				if (board[i][a] == ' ') {
+					board[i][a] = 'X';
+					boolean winning = gameResult(board, i, a) != 0;
+					board[i][a] = 'O';
+					winning = winning || gameResult(board, i, a) != 0;
+					board[i][a] = ' ';
+					if (winning)
+						return new int[] {i, a};
+				}
+
+		return new int[] {-1, -1};
+	}
+
+	/**
+	 * Returns everything besides the board that the value of a
+	 * position depends on, for transposition table keys
+	 */
+	public long state(char[][] board, boolean xTurn) {
+		return ((((long)board.length * 64 + board[0].length) * 64 + winLength) * 2 + (anti ? 1:0)) * 2 + (xTurn ? 1:0);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof TicTacToeRules && ((TicTacToeRules)other).winLength == winLength && ((TicTacToeRules)other).anti == anti;
+	}
+
+	@Override
+	public int hashCode() {
+		return winLength * 2 + (anti ? 1:0);
+	}
+
+	@Override
+	public String toString() {
+		return (anti ? "anti, ":"") + winLength + " in a row";
+	}
+
+	/**
+	 * The player who completes a line wins
+	 */
+	static final class Normal extends TicTacToeRules {
+
+		Normal(int winLength, TicTacToeRolloutPolicy policy) {
+			super(winLength, false, policy);
+		}
+
+		public int resultFor(char color) {
+			return color == 'X' ? 1:-1;
+		}
+
+		public int gameResult(int xBits, int oBits) {
+			return TicTacToeBitboard.gameResult(xBits, oBits, false);
+		}
+
+		public int playout(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+			return policy.playout(xBits, oBits, xTurn, random);
+		}
+
+		/**
+		 * Plays a move that completes a line for either player if there
+		 * is one (for a true Monte Carlo solution, take this out so that
+		 * the simulations are truly random), and a random one otherwise
+		 */
+		public int[] getRandomMove(char[][] board, boolean xTurn, TicTacToeRandom random) {
+			if (bitboard(board)) {
+				int cell = policy.cell(TicTacToeBitboard.bits(board, 'X'), TicTacToeBitboard.bits(board, 'O'), xTurn, random);
+				return new int[] {cell / TicTacToeBitboard.size, cell % TicTacToeBitboard.size};
+			}
+			int[] victoryMove = getWinningMove(board);
+			if (victoryMove[0] != -1)
+				return victoryMove;
+
+			int columns = board[0].length, count = 0, choice = -1;
+			for (int i = 0; i < board.length; i++)
+				for (int a = 0; a < columns; a++)
+					if (board[i][a] == ' ' && random.nextInt(++count) == 0)
+						choice = i * columns + a;
+			return new int[] {choice / columns, choice % columns};
+		}
+	}
+
+	/**
+	 * The player who completes a line loses
+	 */
+	static final class Anti extends TicTacToeRules {
+
+		Anti(int winLength, TicTacToeRolloutPolicy policy) {
+			super(winLength, true, policy);
+		}
+
+		public int resultFor(char color) {
+			return color == 'O' ? 1:-1;
+		}
+
+		public int gameResult(int xBits, int oBits) {
+			return TicTacToeBitboard.gameResult(xBits, oBits, true);
+		}
+
+		public int playout(int xBits, int oBits, boolean xTurn, TicTacToeRandom random) {
+			return policy.antiPlayout(xBits, oBits, xTurn, random);
+		}
+
+		/**
+		 * Plays a random move that doesn't complete a line for the player
+		 * moving, or any random move if they all do
+		 */
+		public int[] getRandomMove(char[][] board, boolean xTurn, TicTacToeRandom random) {
+			if (bitboard(board)) {
+				int cell = policy.antiCell(TicTacToeBitboard.bits(board, 'X'), TicTacToeBitboard.bits(board, 'O'), xTurn, random);
+				return new int[] {cell / TicTacToeBitboard.size, cell % TicTacToeBitboard.size};
+			}
+			int columns = board[0].length, safeMoves = 0, choice = -1, moves = 0, anyChoice = -1;
+			for (int i = 0; i < board.length; i++)
+				for (int a = 0; a < columns; a++) {
+					if (board[i][a] != ' ')
+						continue;
+					if (random.nextInt(++moves) == 0)
+						anyChoice = i * columns + a;
+					board[i][a] = xTurn ? 'X':'O';
+					boolean safe = gameResult(board, i, a) == 0;
+					board[i][a] = ' ';
+					// Reservoir sampling picks a random safe move in one pass
+					if (safe && random.nextInt(++safeMoves) == 0)
+						choice = i * columns + a;
+				}
+			if (choice == -1)
+				choice = anyChoice;
+			return new int[] {choice / columns, choice % columns};
+		}
+	}
+}
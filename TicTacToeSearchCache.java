@@ -0,0 +1,208 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A cache of search results shared by every game in the process, so
+ * that when many games reach the same position (most often an opening)
+ * only the first one searches it. Positions are keyed by their
+ * canonical hash, so symmetric positions share an entry, and a result
+ * stores its best move as a cell of the canonical board.
+ *
+ * A Monte Carlo result also keeps a copy of the searched tree, and a
+ * game that hits the entry makes its own copy of that its root, so that
+ * its later moves reuse the tree's subtrees like they would after its
+ * own search. The cached copy is never searched, so games never share a
+ * tree and the copy never grows.
+ *
+ * Requests for a position that is already being searched wait for that
+ * search instead of starting another (single-flight). Entries are
+ * evicted least recently used first, once the entries' total weight (1
+ * plus the nodes of its tree) goes over the limit.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeSearchCache {
+
+	/**
+	 * A cached search result
+	 */
+	public static class Result {
+		/**
+		 * The best move, as a cell (row * columns + column) of the canonical board
+		 */
+		public final int bestCell;
+		/**
+		 * A copy of the searched tree that no game searches, to be copied
+		 * again by the games that use it, or null if the search didn't
+		 * build one
+		 */
+		public final TicTacToeMCTSNode tree;
+		final long weight;
+
+		public Result(int bestCell, TicTacToeMCTSNode tree) {
+			this.bestCell = bestCell;
+			this.tree = tree;
+			weight = 1 + (tree == null ? 0:tree.size());
+		}
+	}
+
+	private final long maxWeight;
+	private long weight;
+	/**
+	 * The entries in access order, with searches in progress as
+	 * futures that haven't completed yet
+	 */
+	private final LinkedHashMap<Long, CompletableFuture<Result>> entries = new LinkedHashMap<Long, CompletableFuture<Result>>(16, 0.75f, true);
+
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), coalesced = new AtomicLong(), evictions = new AtomicLong();
+
+	/**
+	 * @param maxWeight The most weight the entries may have in total
+	 */
+	public TicTacToeSearchCache(long maxWeight) {
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * Returns the key of a position, from its canonical hash and
+	 * everything else its search depends on
+	 *
+	 * @param  canonicalHash The canonical hash of the board
+	 * @param  state         The turn, rules and kind of search
+	 * @return               The key
+	 */
+	public static long key(long canonicalHash, long state) {
+		return TicTacToeTranspositionTable.key(canonicalHash, state);
+	}
+
+	/**
+	 * Returns the cached result for the key, running search to get it if
+	 * it isn't cached, or waiting for the search already running for it.
+	 * If the search throws, nothing is cached, and the exception is
+	 * thrown to every caller waiting for it.
+	 *
+	 * @param  key    The position's key
+	 * @param  search Searches the position
+	 * @return        The result
+	 */
+	public Result get(long key, Supplier<Result> search) {
+		CompletableFuture<Result> future;
+		boolean searching = false;
+		synchronized (this) {
+			future = entries.get(key);
+			if (future == null) {
+				future = new CompletableFuture<Result>();
+				entries.put(key, future);
+				searching = true;
+			}
+		}
+
+		if (!searching) {
+			if (future.isDone())
+				hits.incrementAndGet();
+			else coalesced.incrementAndGet();
+			try {
+				return future.join();
+			}
+			catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException)e.getCause();
+				throw e;
+			}
+		}
+
+		misses.incrementAndGet();
+		Result result;
+		try {
+			result = search.get();
+		}
+		catch (RuntimeException | Error e) {
+			synchronized (this) {
+				entries.remove(key, future);
+			}
+			future.completeExceptionally(e);
+			throw e;
+		}
+		synchronized (this) {
+			// The entry may have been evicted while it was being searched
+			if (entries.get(key) == future) {
+				weight += result.weight;
+				evict();
+			}
+		}
+		future.complete(result);
+		return result;
+	}
+
+	/**
+	 * Evicts the least recently used finished entries until the weight is
+	 * under the limit. Searches in progress have no weight yet and stay.
+	 */
+	private void evict() {
+		Iterator<CompletableFuture<Result>> iterator = entries.values().iterator();
+		while (weight > maxWeight && iterator.hasNext()) {
+			CompletableFuture<Result> future = iterator.next();
+			if (!future.isDone() || future.isCompletedExceptionally())
+				continue;
+			weight -= future.join().weight;
+			iterator.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Removes every entry
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long weight() {
+		return weight;
+	}
+
+	public long hits() {
+		return hits.get();
+	}
+
+	public long misses() {
+		return misses.get();
+	}
+
+	/**
+	 * The number of requests that waited for another caller's search
+	 */
+	public long coalesced() {
+		return coalesced.get();
+	}
+
+	public long evictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * The fraction of requests that didn't search, counting the ones that
+	 * waited for another caller's search
+	 */
+	public double hitRate() {
+		long hits = this.hits.get() + coalesced.get(), total = hits + misses.get();
+		return total == 0 ? 0:(double)hits / total;
+	}
+
+	/**
+	 * Returns a line with the cache's statistics
+	 */
+	public String stats() {
+		return String.format("cache entries=%d weight=%d hits=%d coalesced=%d misses=%d evictions=%d hit_rate=%.3f",
+			size(), weight(), hits(), coalesced(), misses(), evictions(), hitRate());
+	}
+}
@@ -0,0 +1,360 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A TCP server that hosts many games of TicTacToePlus at once, one
+ * session per connection. Sessions only wait on their socket, so they
+ * run on virtual threads when the JVM has them (Java 21 and up) and on
+ * a cached pool of platform threads otherwise. The ai's searches run on
+ * a separate pool with a thread per core and a bounded queue, so
+ * blocking I/O never holds up a core and a burst of moves can't queue
+ * without limit.
+ *
+ * Every game carries its own TicTacToeRules, so each session can pick
+ * its rules, and sessions playing different rules share nothing but the
+ * caches, whose keys include the rules. The protocol is one command per
+ * line, each answered with one line:
+ *
+ *     NEW [X|O] [rows columns [winLength [ANTI]]]
+ *                          Starts a game with the player on the side
+ *                          passed (X by default), under the server's
+ *                          rules unless a win length is passed. Answers
+ *                          OK, or the ai's first move if it plays X.
+ *     MOVE row column      Plays the player's move. Answers with the
+ *                          ai's reply, MOVE row column, or with the
+ *                          result once the game is over.
+ *     BOARD                Answers BOARD and the rows, with . for
+ *                          empty cells and / between rows.
+ *     SEED                 Answers SEED and the seed of the ai's random
+ *                          numbers, to replay the game with.
+ *     STATS                Answers with the server's statistics.
+ *     QUIT                 Closes the session.
+ *
+ * Once a game ends the answer is RESULT X, RESULT O or RESULT DRAW, after
+ * the ai's move if it ended the game, and anything invalid is answered
+ * with ERROR and a reason.
+ *
+ *     java TicTacToeServer [port] [trials] [searchThreads] [anti] [winLength] [treeSnapshot]
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeServer {
+
+	public final int port;
+	/**
+	 * The Monte Carlo trials the ai runs for each move
+	 */
+	public int trials = 10000;
+	/**
+	 * The rules of games started without a win length
+	 */
+	public TicTacToeRules rules = TicTacToeRules.standard;
+	/**
+	 * How long a session may go without a command before it is closed
+	 */
+	public int idleTimeoutMillis = 10 * 60 * 1000;
+	/**
+	 * The search results shared by every session, so that a position
+	 * many games reach is only searched once, or null for none. It keeps
+	 * trees of up to 2 million nodes in total.
+	 */
+	public TicTacToeSearchCache searchCache = new TicTacToeSearchCache(2000000);
+	/**
+	 * A saved tree that new games start from instead of an empty one,
+	 * when it was saved on their board, or null for none
+	 */
+	public TicTacToeTreeSnapshot treeSnapshot;
+
+	private final ExecutorService sessions;
+	private final boolean virtualThreads;
+	private final ThreadPoolExecutor searches;
+	private ServerSocket serverSocket;
+
+	private final AtomicInteger activeSessions = new AtomicInteger();
+	private final AtomicLong totalSessions = new AtomicLong(), movesPlayed = new AtomicLong(), searchesRejected = new AtomicLong();
+	/**
+	 * The time from submitting a search to getting its move, including
+	 * the time spent in the queue
+	 */
+	private final TicTacToeHistogram moveLatency = new TicTacToeHistogram();
+
+	/**
+	 * @param port          The port to listen on, or 0 for any free port
+	 * @param searchThreads The number of threads the ai searches on
+	 * @param maxQueued     The most searches that may wait for a thread
+	 */
+	public TicTacToeServer(int port, int searchThreads, int maxQueued) {
+		this.port = port;
+		ExecutorService virtual = virtualThreadExecutor();
+		virtualThreads = virtual != null;
+		sessions = virtual != null ? virtual:Executors.newCachedThreadPool(daemonThreads("TicTacToe session"));
+		searches = new ThreadPoolExecutor(searchThreads, searchThreads, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(maxQueued), daemonThreads("TicTacToe search"));
+	}
+
+	/**
+	 * Returns an executor that starts a virtual thread per task, or null
+	 * if this JVM doesn't have virtual threads. It is looked up by
+	 * reflection so that the server still compiles and runs on Java 17.
+	 */
+	private static ExecutorService virtualThreadExecutor() {
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	private static ThreadFactory daemonThreads(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, name + " " + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	public static void main(String... pumpkins) throws IOException {
+		int port = pumpkins.length > 0 ? Integer.parseInt(pumpkins[0]):4000;
+		int searchThreads = pumpkins.length > 2 ? Integer.parseInt(pumpkins[2]):Runtime.getRuntime().availableProcessors();
+		boolean anti = pumpkins.length > 3 && Boolean.parseBoolean(pumpkins[3]);
+		int winLength = pumpkins.length > 4 ? Integer.parseInt(pumpkins[4]):3;
+
+		TicTacToeServer server = new TicTacToeServer(port, searchThreads, 10000);
+		server.rules = TicTacToeRules.of(winLength, anti);
+		if (pumpkins.length > 1)
+			server.trials = Integer.parseInt(pumpkins[1]);
+		if (pumpkins.length > 5)
+			server.treeSnapshot = TicTacToeTreeSnapshot.open(pumpkins[5]);
+		server.start();
+		System.out.println("Listening on port " + server.localPort() + (server.virtualThreads ? " with virtual threads":" with platform threads"));
+
+		// Report the statistics every 10 seconds, off of the sessions' threads
+		ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(daemonThreads("TicTacToe stats"));
+		reporter.scheduleAtFixedRate(() -> System.out.println(server.stats()), 10, 10, TimeUnit.SECONDS);
+		server.acceptLoop();
+	}
+
+	/**
+	 * Opens the server socket
+	 */
+	public void start() throws IOException {
+		serverSocket = new ServerSocket(port, 1024);
+	}
+
+	public int localPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Accepts connections until the server is closed, starting a session for each
+	 */
+	public void acceptLoop() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				sessions.execute(() -> session(socket));
+			}
+			catch (IOException e) {
+				if (!serverSocket.isClosed())
+					System.err.println("Accept failed: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting connections and stops the pools
+	 */
+	public void close() throws IOException {
+		serverSocket.close();
+		sessions.shutdownNow();
+		searches.shutdownNow();
+	}
+
+	/**
+	 * Returns a line with the server's statistics
+	 */
+	public String stats() {
+		String cache = searchCache == null ? "":" " + searchCache.stats();
+		synchronized (moveLatency) {
+			return String.format("STATS sessions=%d total=%d moves=%d searching=%d queued=%d rejected=%d latency_ms p50=%.2f p99=%.2f max=%.2f%s",
+				activeSessions.get(), totalSessions.get(), movesPlayed.get(), searches.getActiveCount(), searches.getQueue().size(),
+				searchesRejected.get(), moveLatency.percentile(50) / 1e6, moveLatency.percentile(99) / 1e6, moveLatency.max() / 1e6, cache);
+		}
+	}
+
+	/**
+	 * Runs a session's commands until it quits or its connection closes
+	 */
+	private void session(Socket socket) {
+		activeSessions.incrementAndGet();
+		totalSessions.incrementAndGet();
+		try (Socket connection = socket;
+			BufferedReader input = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+			PrintWriter output = new PrintWriter(connection.getOutputStream(), true, StandardCharsets.UTF_8)) {
+			connection.setSoTimeout(idleTimeoutMillis);
+			connection.setTcpNoDelay(true);
+			TicTacToePlus game = null;
+			String line;
+			while ((line = input.readLine()) != null) {
+				String[] command = line.trim().split("\\s+");
+				String name = command[0].toUpperCase();
+				if (name.equals("QUIT"))
+					break;
+				try {
+					if (name.equals("NEW")) {
+						game = newGame(command);
+						output.println(game.aiTurn == 1 ? aiMove(game):"OK");
+					}
+					else if (name.equals("STATS"))
+						output.println(stats());
+					else if (game == null)
+						output.println("ERROR no game, send NEW first");
+					else if (name.equals("MOVE"))
+						output.println(playerMove(game, command));
+					else if (name.equals("BOARD"))
+						output.println(board(game));
+					else if (name.equals("SEED"))
+						output.println("SEED " + game.random.seed());
+					else output.println("ERROR unknown command " + command[0]);
+				}
+				catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+					output.println("ERROR bad arguments for " + command[0]);
+				}
+				catch (RejectedExecutionException e) {
+					searchesRejected.incrementAndGet();
+					output.println("ERROR server busy, try the move again");
+				}
+			}
+		}
+		catch (SocketTimeoutException e) {
+			// The session was idle for too long
+		}
+		catch (IOException e) {
+			// The client went away
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			activeSessions.decrementAndGet();
+		}
+	}
+
+	private TicTacToePlus newGame(String[] command) {
+		boolean playerX = command.length < 2 || !command[1].equalsIgnoreCase("O");
+		int rows = command.length > 3 ? Integer.parseInt(command[2]):3;
+		int columns = command.length > 3 ? Integer.parseInt(command[3]):3;
+		if (rows < 1 || columns < 1 || rows * columns > 400)
+			throw new NumberFormatException();
+		TicTacToeRules rules = this.rules;
+		if (command.length > 4) {
+			int winLength = Integer.parseInt(command[4]);
+			if (winLength < 1)
+				throw new NumberFormatException();
+			rules = TicTacToeRules.of(winLength, command.length > 5 && command[5].equalsIgnoreCase("ANTI"));
+		}
+		TicTacToePlus game = new TicTacToePlus(playerX ? -1:1, rows, columns, rules);
+		game.trialsPerThread = trials;
+		game.searchCache = searchCache;
+		if (treeSnapshot != null)
+			game.useSnapshot(treeSnapshot);
+		return game;
+	}
+
+	private String playerMove(TicTacToePlus game, String[] command) throws InterruptedException {
+		if (game.rules.gameOver(game.board))
+			return result(game);
+		if ((game.aiTurn == 1) == game.xTurn)
+			return "ERROR not your turn";
+		int row = Integer.parseInt(command[1]), column = Integer.parseInt(command[2]);
+		if (row < 0 || row >= game.board.length || column < 0 || column >= game.board[0].length || game.board[row][column] != ' ')
+			return "ERROR illegal move";
+		game.playMove(row, column);
+		if (game.rules.gameOver(game.board))
+			return result(game);
+		return aiMove(game);
+	}
+
+	/**
+	 * Searches for the ai's move on the search pool, waiting for it on the
+	 * session's thread, and answers with the move (and the result if it
+	 * ended the game), or with an error if the search failed. The search
+	 * doesn't check for interrupts, so if the session's thread is
+	 * interrupted it still waits for the search to stop changing the game
+	 * before throwing.
+	 */
+	private String aiMove(TicTacToePlus game) throws InterruptedException {
+		char[][] before = new char[game.board.length][];
+		for (int i = 0; i < before.length; i++)
+			before[i] = game.board[i].clone();
+
+		long start = System.nanoTime();
+		Future<?> search = searches.submit(game::playMoveAI);
+		boolean interrupted = false;
+		while (true) {
+			try {
+				search.get();
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+			catch (ExecutionException e) {
+				if (interrupted)
+					throw new InterruptedException();
+				return "ERROR the ai's search failed with " + e.getCause().getClass().getSimpleName();
+			}
+		}
+		if (interrupted)
+			throw new InterruptedException();
+		long nanos = System.nanoTime() - start;
+		movesPlayed.incrementAndGet();
+		synchronized (moveLatency) {
+			moveLatency.record(nanos);
+		}
+
+		for (int i = 0; i < before.length; i++)
+			for (int a = 0; a < before[i].length; a++)
+				if (before[i][a] != game.board[i][a]) {
+					String move = "MOVE " + i + " " + a;
+					return game.rules.gameOver(game.board) ? move + " " + result(game):move;
+				}
+		return result(game);
+	}
+
+	private static String result(TicTacToePlus game) {
+		int result = game.rules.gameResult(game.board);
+		return result > 0 ? "RESULT X":result < 0 ? "RESULT O":"RESULT DRAW";
+	}
+
+	private static String board(TicTacToePlus game) {
+		StringBuilder board = new StringBuilder("BOARD ");
+		for (int i = 0; i < game.board.length; i++) {
+			if (i > 0)
+				board.append('/');
+			for (int a = 0; a < game.board[i].length; a++)
+				board.append(game.board[i][a] == ' ' ? '.':game.board[i][a]);
+		}
+		return board.toString();
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * The symmetries of a Tic Tac Toe board, the same ones that
+ * TicTacToePlus.identicalBoards checks. Square boards have all 8
+ * (the identity, 3 rotations and 4 reflections), while other
+ * boards only have the first 4, which don't transpose the board.
+ *
+ * A symmetry maps the cell board[i][a] to the cell returned by
+ * transformCell, and positions are compared through a canonical hash,
+ * the smallest hash over all of a position's symmetric images.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeSymmetry {
+
+	public static final int numSymmetries = 8;
+
+	/**
+	 * inverses[sym] undoes sym
+	 */
+	private static final int[] inverses = new int[numSymmetries];
+
+	/**
+	 * compositions[first][second] is the same as applying
+	 * first, then second
+	 */
+	private static final int[][] compositions = new int[numSymmetries][numSymmetries];
+
+	private static final long[] powersOfThree = new long[40];
+
+	static {
+		powersOfThree[0] = 1;
+		for (int i = 1; i < powersOfThree.length; i++)
+			powersOfThree[i] = powersOfThree[i - 1] * 3;
+
+		// Work the group out on a board big enough to tell all 8 symmetries apart
+		int n = 3;
+		for (int first = 0; first < numSymmetries; first++)
+			for (int second = 0; second < numSymmetries; second++)
+				for (int sym = 0; sym < numSymmetries; sym++) {
+					boolean same = true;
+					for (int cell = 0; cell < n * n && same; cell++)
+						same = transformCell(second, transformCell(first, cell, n, n), n, n) == transformCell(sym, cell, n, n);
+					if (same) {
+						compositions[first][second] = sym;
+						if (sym == 0)
+							inverses[first] = second;
+						break;
+					}
+				}
+	}
+
+	/**
+	 * Returns the number of symmetries of a board with the passed dimensions
+	 */
+	public static int symmetries(int rows, int columns) {
+		return rows == columns ? numSymmetries:4;
+	}
+
+	/**
+	 * Maps the cell index (i * columns + a) through the symmetry
+	 *
+	 * @param  sym     The symmetry to apply
+	 * @param  cell    The cell index
+	 * @param  rows    The number of rows on the board
+	 * @param  columns The number of columns on the board
+	 * @return         The index of the cell the passed cell is moved to
+	 */
+	public static int transformCell(int sym, int cell, int rows, int columns) {
+		int i = cell / columns, a = cell % columns;
+		switch (sym) {
+			case 0: return cell;
+			case 1: return i * columns + columns - 1 - a;
+			case 2: return (rows - 1 - i) * columns + a;
+			case 3: return (rows - 1 - i) * columns + columns - 1 - a;
+			case 4: return a * columns + i;
+			case 5: return a * columns + rows - 1 - i;
+			case 6: return (columns - 1 - a) * columns + rows - 1 - i;
+			default: return (columns - 1 - a) * columns + i;
+		}
+	}
+
+	public static int inverse(int sym) {
+		return inverses[sym];
+	}
+
+	/**
+	 * Returns the symmetry that applies first, then second
+	 */
+	public static int compose(int first, int second) {
+		return compositions[first][second];
+	}
+
+	/**
+	 * Returns the value of a cell for hashing: 0 for empty, 1 for X and 2 for O
+	 */
+	private static int cellValue(char c) {
+		return c == 'X' ? 1:c == 'O' ? 2:0;
+	}
+
+	/**
+	 * Hashes the image of the board under the symmetry. Boards with
+	 * up to 39 cells are hashed exactly, as base 3 numbers, so distinct
+	 * positions never collide. Larger boards fold the base 3 digits
+	 * into a 64 bit hash.
+	 *
+	 * @param  board The current state of the board
+	 * @param  sym   The symmetry to apply before hashing
+	 * @return       The hash of the transformed board
+	 */
+	public static long hash(char[][] board, int sym) {
+		int rows = board.length, columns = board[0].length;
+		long hash = 0;
+		if (rows * columns <= 39) {
+			for (int i = 0; i < rows; i++)
+				for (int a = 0; a < columns; a++)
+					if (board[i][a] != ' ')
+						hash += cellValue(board[i][a]) * powersOfThree[transformCell(sym, i * columns + a, rows, columns)];
+		}
+		else
+			for (int i = 0; i < rows; i++)
+				for (int a = 0; a < columns; a++)
+					if (board[i][a] != ' ')
+						hash += mix(transformCell(sym, i * columns + a, rows, columns) * 3L + cellValue(board[i][a]));
+		return hash;
+	}
+
+	/**
+	 * A 64 bit finalizer (from SplitMix64) used to spread hashes
+	 */
+	public static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns the symmetry whose image of the board has the smallest
+	 * hash. Symmetric positions share the same canonical image.
+	 *
+	 * @param  board The current state of the board
+	 * @return       The canonical symmetry
+	 */
+	public static int canonicalSymmetry(char[][] board) {
+		int bestSym = 0;
+		long bestHash = hash(board, 0);
+		for (int sym = 1; sym < symmetries(board.length, board[0].length); sym++) {
+			long hash = hash(board, sym);
+			if (hash < bestHash) {
+				bestHash = hash;
+				bestSym = sym;
+			}
+		}
+		return bestSym;
+	}
+
+	/**
+	 * Returns the canonical hash of the board, which is identical
+	 * for all 8 (or 4) symmetric variants of the position
+	 */
+	public static long canonicalHash(char[][] board) {
+		return hash(board, canonicalSymmetry(board));
+	}
+}
@@ -0,0 +1,274 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A precomputed table of the value and best move of every reachable
+ * position, read through a memory mapped file so that a lookup is a
+ * single byte read. The mapping is read only, so every JVM on the host
+ * that opens the same file shares one copy of it in the page cache.
+ *
+ * The file starts with a header:
+ *
+ *     int   magic ("TTTB")
+ *     int   version
+ *     byte  rows, columns, winLength
+ *     byte  anti (1 for Anti Tic Tac Toe rules)
+ *     byte  symmetryReduced (1 if only canonical positions are stored)
+ *     byte  indexing (DIRECT or RANKED)
+ *     short reserved
+ *     long  the number of positions stored
+ *     long  reserved
+ *
+ * followed by one byte per position. With DIRECT indexing, the position
+ * with canonical hash h (see TicTacToeSymmetry.hash, which is exact and
+ * base 3 for small boards) is at byte HEADER_SIZE + h. An entry holds
+ * the value in its low 2 bits (0 if the position isn't stored, then 1, 2
+ * and 3 for an O win, a draw and an X win) and the best move's cell + 1,
+ * as seen from the canonical position, in the other 6 bits.
+ *
+ * RANKED tables (made by TicTacToeRetrograde for bigger boards) store
+ * every position instead of only the canonical ones, level by level
+ * from the empty board up, each level in the order of
+ * TicTacToeRetrograde.rank.
+ *
+ * Running the class generates the tablebases for both rule sets:
+ *
+ *     java TicTacToeTablebase [directory] [rows columns winLength]
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeTablebase {
+
+	public static final int MAGIC = 0x54545442;
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 32;
+	public static final int DIRECT = 0, RANKED = 1;
+
+	/**
+	 * The largest board a DIRECT table can be made for, since 3^16
+	 * bytes is already 43MB
+	 */
+	public static final int maxDirectCells = 16;
+
+	public final int rows, columns, winLength, indexing;
+	public final boolean anti, symmetryReduced;
+	public final long positions;
+	private final MappedByteBuffer entries;
+	/**
+	 * Where each level starts in a RANKED table
+	 */
+	private long[] levelOffsets;
+
+	private TicTacToeTablebase(MappedByteBuffer entries) throws IOException {
+		this.entries = entries;
+		if (entries.getInt(0) != MAGIC || entries.getInt(4) != VERSION)
+			throw new IOException("Not a version " + VERSION + " Tic Tac Toe tablebase");
+		rows = entries.get(8);
+		columns = entries.get(9);
+		winLength = entries.get(10);
+		anti = entries.get(11) != 0;
+		symmetryReduced = entries.get(12) != 0;
+		indexing = entries.get(13);
+		positions = entries.getLong(16);
+		if (indexing == RANKED) {
+			levelOffsets = new long[rows * columns + 1];
+			for (int level = 1; level < levelOffsets.length; level++)
+				levelOffsets[level] = levelOffsets[level - 1] + TicTacToeRetrograde.levelSize(rows * columns, level - 1);
+		}
+		else if (indexing != DIRECT)
+			throw new IOException("Unknown tablebase indexing " + indexing);
+	}
+
+	/**
+	 * Maps a tablebase file into memory
+	 *
+	 * @param  file The path of the file
+	 * @return      The tablebase
+	 */
+	public static TicTacToeTablebase open(String file) throws IOException {
+		try (RandomAccessFile input = new RandomAccessFile(file, "r"); FileChannel channel = input.getChannel()) {
+			return new TicTacToeTablebase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Returns the name the generator gives the tablebase for a game
+	 */
+	public static String fileName(int rows, int columns, int winLength, boolean anti) {
+		return (anti ? "anti-tictactoe-":"tictactoe-") + rows + "x" + columns + "-" + winLength + ".tb";
+	}
+
+	/**
+	 * Returns true if the tablebase was made for boards like
+	 * the passed one, under the passed rules
+	 */
+	public boolean covers(char[][] board, TicTacToeRules rules) {
+		return board.length == rows && board[0].length == columns && rules.winLength == winLength && rules.anti == anti;
+	}
+
+	/**
+	 * Looks up the position, returning an analysis like findBestMove's:
+	 * the value of the position with perfect play (1 if X wins, -1 if O
+	 * wins, 0 for a draw) followed by the x and y coords of the best
+	 * move, which are -1 if the game is over. Returns null if the
+	 * position isn't in the tablebase.
+	 *
+	 * @param  board The current state of the board
+	 * @return       The value and best move, or null
+	 */
+	public int[] bestMove(char[][] board) {
+		int sym = symmetryReduced ? TicTacToeSymmetry.canonicalSymmetry(board):0;
+		int entry = entries.get(HEADER_SIZE + (int)index(board, sym));
+		if ((entry & 3) == 0)
+			return null;
+		int cell = ((entry & 0xFF) >>> 2) - 1;
+		if (cell == -1)
+			return new int[] {value(entry), -1, -1};
+		// Map the move from the canonical position back onto the board
+		cell = TicTacToeSymmetry.transformCell(TicTacToeSymmetry.inverse(sym), cell, rows, columns);
+		return new int[] {value(entry), cell / columns, cell % columns};
+	}
+
+	/**
+	 * Returns the position of the board's (transformed) entry in the table
+	 */
+	private long index(char[][] board, int sym) {
+		if (indexing == DIRECT)
+			return TicTacToeSymmetry.hash(board, sym);
+		long xBits = 0, oBits = 0;
+		for (int i = 0; i < rows; i++)
+			for (int a = 0; a < columns; a++)
+				if (board[i][a] == 'X')
+					xBits |= 1L << (i * columns + a);
+				else if (board[i][a] == 'O')
+					oBits |= 1L << (i * columns + a);
+		return levelOffsets[Long.bitCount(xBits | oBits)] + TicTacToeRetrograde.rank(rows * columns, xBits, oBits);
+	}
+
+	/**
+	 * Returns the value stored in an entry
+	 */
+	public static int value(int entry) {
+		return (entry & 3) - 2;
+	}
+
+	/**
+	 * Returns the entry for a value and best cell (-1 for no move)
+	 */
+	public static byte entry(int value, int bestCell) {
+		return (byte)((bestCell + 1) << 2 | (value + 2));
+	}
+
+	public static void main(String... pumpkins) throws IOException {
+		String directory = pumpkins.length > 0 ? pumpkins[0]:".";
+		int rows = pumpkins.length > 3 ? Integer.parseInt(pumpkins[1]):3;
+		int columns = pumpkins.length > 3 ? Integer.parseInt(pumpkins[2]):3;
+		int winLength = pumpkins.length > 3 ? Integer.parseInt(pumpkins[3]):3;
+		for (boolean anti : new boolean[] {false, true}) {
+			long start = System.nanoTime();
+			String file = directory + "/" + fileName(rows, columns, winLength, anti);
+			long positions = generate(rows, columns, winLength, anti, file);
+			System.out.printf("%s: %d positions in %.2fs%n", file, positions, (System.nanoTime() - start) / 1e9);
+		}
+	}
+
+	/**
+	 * Solves every position reachable from the empty board and writes
+	 * the symmetry reduced tablebase
+	 *
+	 * @param  rows      The number of rows on the board
+	 * @param  columns   The number of columns on the board
+	 * @param  winLength The number of stones in a row needed to win
+	 * @param  anti      Whether or not to use Anti Tic Tac Toe rules
+	 * @param  file      The path to write the tablebase to
+	 * @return           The number of positions in the tablebase
+	 */
+	public static long generate(int rows, int columns, int winLength, boolean anti, String file) throws IOException {
+		if (rows * columns > maxDirectCells)
+			throw new IllegalArgumentException("Boards bigger than " + maxDirectCells + " cells are too big to index directly, see TicTacToeRetrograde");
+		TicTacToeRules rules = TicTacToeRules.of(winLength, anti);
+
+		byte[] entries = new byte[(int)Math.pow(3, rows * columns)];
+		char[][] board = new TicTacToePlus(0, rows, columns, rules).board;
+		long positions = solve(board, true, rules.gameResult(board), rows * columns, entries, rules);
+		write(file, rows, columns, winLength, anti, positions, entries);
+		return positions;
+	}
+
+	/**
+	 * Writes a DIRECT, symmetry reduced tablebase file
+	 */
+	static void write(String file, int rows, int columns, int winLength, boolean anti, long positions, byte[] entries) throws IOException {
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+			writeHeader(output, rows, columns, winLength, anti, true, DIRECT, positions);
+			output.write(entries);
+		}
+	}
+
+	/**
+	 * Writes the HEADER_SIZE bytes of a tablebase's header
+	 */
+	static void writeHeader(DataOutputStream output, int rows, int columns, int winLength, boolean anti, boolean symmetryReduced, int indexing, long positions) throws IOException {
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeByte(rows);
+		output.writeByte(columns);
+		output.writeByte(winLength);
+		output.writeByte(anti ? 1:0);
+		output.writeByte(symmetryReduced ? 1:0);
+		output.writeByte(indexing);
+		output.writeShort(0);
+		output.writeLong(positions);
+		output.writeLong(0);
+	}
+
+	/**
+	 * This (recursive) function solves the position and every position
+	 * reachable from it that isn't solved yet, storing them in entries
+	 * under their canonical hash
+	 *
+	 * @param  board      The current state of the board
+	 * @param  xTurn      Whether or not it is the X's turn currently
+	 * @param  result     The result of the game at this position
+	 * @param  emptyCells The number of empty cells on the board
+	 * @param  entries    The tablebase entries
+	 * @param  rules      The rules the game is played by
+	 * @return            The number of positions solved
+	 */
+	private static long solve(char[][] board, boolean xTurn, int result, int emptyCells, byte[] entries, TicTacToeRules rules) {
+		int sym = TicTacToeSymmetry.canonicalSymmetry(board);
+		int index = (int)TicTacToeSymmetry.hash(board, sym);
+		if (entries[index] != 0)
+			return 0;
+		if (result != 0 || emptyCells == 0) {
+			entries[index] = entry(result, -1);
+			return 1;
+		}
+
+		long positions = 1;
+		int value = xTurn ? -2:2, bestCell = -1;
+		for (int i = 0; i < board.length; i++)
+			for (int a = 0; a < board[i].length; a++) {
+				if (board[i][a] != ' ')
+					continue;
+				board[i][a] = xTurn ? 'X':'O';
+				positions += solve(board, !xTurn, rules.gameResult(board, i, a), emptyCells - 1, entries, rules);
+				int childValue = value(entries[(int)TicTacToeSymmetry.canonicalHash(board)]);
+				board[i][a] = ' ';
+
+				if ((xTurn && childValue > value) || (!xTurn && childValue < value)) {
+					value = childValue;
+					bestCell = i * board[i].length + a;
+				}
+			}
+
+		// The best move is stored as seen from the canonical position
+		entries[index] = entry(value, TicTacToeSymmetry.transformCell(sym, bestCell, board.length, board[0].length));
+		return positions;
+	}
+}
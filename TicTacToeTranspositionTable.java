@@ -0,0 +1,128 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded transposition table for the depth first searches, which
+ * many searching threads can share without locking.
+ *
+ * The table is split into buckets of two entries. The first entry
+ * keeps whichever result has the most empty cells below it (the most
+ * expensive one to recompute), while the second entry is always
+ * replaced. Each entry is two longs, the key xor'd with the data and
+ * the data, so a reader that sees half of a concurrent write notices
+ * that the two don't match and treats it as a miss.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeTranspositionTable {
+
+	/**
+	 * Returned by probe when the key is not in the table
+	 */
+	public static final long MISS = -1;
+
+	/**
+	 * Whether a stored value is exact, or only a bound from an
+	 * alpha-beta search that was cut off. Bounds are from X's point
+	 * of view: a LOWER bound means the value is at least the stored one.
+	 */
+	public static final int EXACT = 0, LOWER = 1, UPPER = 2;
+
+	private static final long VALID = 1L << 62;
+
+	private final AtomicLongArray entries;
+	private final int bucketMask;
+
+	/**
+	 * @param buckets The number of buckets, rounded up to a power of two
+	 */
+	public TicTacToeTranspositionTable(int buckets) {
+		int size = Integer.highestOneBit(Math.max(1, buckets - 1)) << 1;
+		entries = new AtomicLongArray(size * 4);
+		bucketMask = size - 1;
+	}
+
+	/**
+	 * Combines a position hash with the rest of the state that its
+	 * value depends on (the turn and rules) into a single key
+	 */
+	public static long key(long hash, long state) {
+		return TicTacToeSymmetry.mix(hash * 0x9e3779b97f4a7c15L + state);
+	}
+
+	private int bucket(long key) {
+		return (int)(key ^ (key >>> 32)) & bucketMask;
+	}
+
+	/**
+	 * Looks up a key
+	 *
+	 * @param  key The key of the position
+	 * @return     The packed data stored for the key, or MISS
+	 */
+	public long probe(long key) {
+		int index = bucket(key) * 4;
+		for (int i = index; i < index + 4; i += 2) {
+			long data = entries.get(i + 1);
+			if ((data & VALID) != 0 && (entries.get(i) ^ data) == key)
+				return data;
+		}
+		return MISS;
+	}
+
+	/**
+	 * Stores a result for a key
+	 *
+	 * @param key      The key of the position
+	 * @param value    The value of the position, -1, 0 or 1
+	 * @param bestCell The best move as a cell index, or -1
+	 * @param depth    The number of empty cells in the position
+	 */
+	public void store(long key, int value, int bestCell, int depth) {
+		store(key, value, bestCell, depth, EXACT);
+	}
+
+	/**
+	 * Stores a result that may only be a bound for a key
+	 *
+	 * @param bound EXACT, LOWER or UPPER
+	 * @see   store(long, int, int, int)
+	 */
+	public void store(long key, int value, int bestCell, int depth, int bound) {
+		long data = VALID | (value + 1) | ((long)(bestCell + 1) << 2) | ((long)Math.min(depth, 0xff) << 18) | ((long)bound << 26);
+		int index = bucket(key) * 4;
+		long stored = entries.get(index + 1);
+		// Keep the deeper result in the first entry, and put the other one in the second
+		if ((stored & VALID) == 0 || (entries.get(index) ^ stored) == key || depth(stored) <= depth)
+			write(index, key, data);
+		else write(index + 2, key, data);
+	}
+
+	private void write(int index, long key, long data) {
+		entries.set(index + 1, data);
+		entries.set(index, key ^ data);
+	}
+
+	public static int value(long data) {
+		return (int)(data & 3) - 1;
+	}
+
+	public static int bestCell(long data) {
+		return (int)((data >>> 2) & 0xffff) - 1;
+	}
+
+	public static int depth(long data) {
+		return (int)((data >>> 18) & 0xff);
+	}
+
+	public static int bound(long data) {
+		return (int)((data >>> 26) & 3);
+	}
+
+	/**
+	 * Empties the table
+	 */
+	public void clear() {
+		for (int i = 0; i < entries.length(); i++)
+			entries.set(i, 0);
+	}
+}
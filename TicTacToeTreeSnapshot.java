@@ -0,0 +1,259 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+
+/**
+ * A searched Monte Carlo tree saved to a file, so that a new JVM can
+ * start from it instead of from an empty tree. The file is memory
+ * mapped, and nodes are only read from it when the search first needs
+ * their children, so opening a snapshot takes the same time whatever
+ * its size, and the parts of the tree the games never reach are never
+ * read at all.
+ *
+ * The file starts with a header:
+ *
+ *     int    magic ("TTTS")
+ *     int    version
+ *     byte   rows, columns, winLength
+ *     byte   anti (1 for Anti Tic Tac Toe rules)
+ *     byte   xTurn (1 if X moves at the root)
+ *     byte   reserved
+ *     short  reserved
+ *     long   the number of nodes
+ *     double the expansion constant
+ *     byte[] the root's board, row by row (rows * columns bytes)
+ *
+ * followed by a record of NODE_SIZE bytes per node, in breadth first
+ * order, so that the children of a node are next to each other:
+ *
+ *     int   hits, misses, totalTrials
+ *     int   the index of the first child, or -1 if it has no children
+ *     short the number of children
+ *     short the cell of the move to the node (row * columns + column), or -1 for the root
+ *
+ * The tree should not be searched while it is saved, since its
+ * statistics would change while they are written.
+ *
+ *     java TicTacToeTreeSnapshot file [trials] [anti] [rows columns winLength]
+ *
+ * searches a tree from the empty board, saves it to file, loads it back
+ * and reports the times and the file's size.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeTreeSnapshot {
+
+	public static final int MAGIC = 0x54545453;
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 32, NODE_SIZE = 20;
+
+	public final int rows, columns, winLength;
+	public final boolean anti, xTurn;
+	public final long nodes;
+	public final double expansionConstant;
+	private final MappedByteBuffer buffer;
+	private final int nodesOffset;
+
+	private TicTacToeTreeSnapshot(MappedByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			throw new IOException("Not a version " + VERSION + " Tic Tac Toe tree snapshot");
+		rows = buffer.get(8);
+		columns = buffer.get(9);
+		winLength = buffer.get(10);
+		anti = buffer.get(11) != 0;
+		xTurn = buffer.get(12) != 0;
+		nodes = buffer.getLong(16);
+		expansionConstant = buffer.getDouble(24);
+		nodesOffset = HEADER_SIZE + rows * columns;
+		if (buffer.capacity() != nodesOffset + nodes * NODE_SIZE)
+			throw new IOException("The snapshot is truncated");
+	}
+
+	/**
+	 * Maps a snapshot file into memory, without reading its nodes
+	 *
+	 * @param  file The path of the file
+	 * @return      The snapshot
+	 */
+	public static TicTacToeTreeSnapshot open(String file) throws IOException {
+		try (RandomAccessFile input = new RandomAccessFile(file, "r"); FileChannel channel = input.getChannel()) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Snapshots over 2GB aren't supported");
+			return new TicTacToeTreeSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Returns true if the snapshot was made for boards like the
+	 * passed one, under the passed rules
+	 */
+	public boolean covers(char[][] board, TicTacToeRules rules) {
+		return board.length == rows && board[0].length == columns && rules.winLength == winLength && rules.anti == anti;
+	}
+
+	/**
+	 * Returns a new root node for the snapshot's tree. Every call makes
+	 * its own nodes, so games can share a snapshot without sharing a tree.
+	 */
+	public TicTacToeMCTSNode root() {
+		char[][] board = new char[rows][columns];
+		for (int i = 0; i < rows; i++)
+			for (int a = 0; a < columns; a++)
+				board[i][a] = (char)buffer.get(HEADER_SIZE + i * columns + a);
+		TicTacToeMCTSNode root = new TicTacToeMCTSNode(board, xTurn, null, null, expansionConstant, TicTacToeRules.of(winLength, anti));
+		read(root, 0);
+		return root;
+	}
+
+	/**
+	 * Sets a node's statistics from its record
+	 */
+	private void read(TicTacToeMCTSNode node, int index) {
+		int offset = nodesOffset + index * NODE_SIZE;
+		node.stats.hits = buffer.getInt(offset);
+		node.stats.misses = buffer.getInt(offset + 4);
+		node.stats.totalTrials = buffer.getInt(offset + 8);
+		node.snapshot = this;
+		node.snapshotIndex = index;
+	}
+
+	/**
+	 * Reads the children of a node that was read from the snapshot
+	 *
+	 * @param  parent The node
+	 * @return        Its children, or null if it had none when it was saved
+	 */
+	TicTacToeMCTSNode[] children(TicTacToeMCTSNode parent) {
+		int offset = nodesOffset + parent.snapshotIndex * NODE_SIZE;
+		int firstChild = buffer.getInt(offset + 12), count = buffer.getShort(offset + 16);
+		if (firstChild < 0)
+			return null;
+
+		char[][] board = new char[rows][];
+		for (int i = 0; i < rows; i++)
+			board[i] = parent.board[i].clone();
+		TicTacToeMCTSNode[] children = new TicTacToeMCTSNode[count];
+		for (int c = 0; c < count; c++) {
+			int cell = buffer.getShort(nodesOffset + (firstChild + c) * NODE_SIZE + 18);
+			int[] move = {cell / columns, cell % columns};
+			board[move[0]][move[1]] = parent.xTurn ? 'X':'O';
+			children[c] = new TicTacToeMCTSNode(board, !parent.xTurn, parent, move, parent.expansionConstant, parent.rules);
+			board[move[0]][move[1]] = ' ';
+			read(children[c], firstChild + c);
+		}
+		return children;
+	}
+
+	/**
+	 * Saves a tree, reading any of its nodes that came from a snapshot
+	 * but haven't been read yet. The file is written next to its final
+	 * name and then renamed, so a crash never leaves half of a snapshot.
+	 *
+	 * @param  root The root of the tree
+	 * @param  file The path of the file
+	 * @return      The number of nodes saved
+	 */
+	public static long save(TicTacToeMCTSNode root, String file) throws IOException {
+		// Number the nodes breadth first, so that siblings get consecutive indices
+		ArrayList<TicTacToeMCTSNode> order = new ArrayList<TicTacToeMCTSNode>();
+		order.add(root);
+		for (int i = 0; i < order.size(); i++) {
+			TicTacToeMCTSNode[] children = order.get(i).children();
+			if (children != null)
+				for (int c = 0; c < children.length; c++)
+					order.add(children[c]);
+		}
+		if (order.size() > (Integer.MAX_VALUE - HEADER_SIZE - 1024) / NODE_SIZE)
+			throw new IOException("The tree is too big for a snapshot");
+
+		int rows = root.board.length, columns = root.board[0].length;
+		File temporary = new File(file + ".tmp");
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeByte(rows);
+			output.writeByte(columns);
+			output.writeByte(root.rules.winLength);
+			output.writeByte(root.rules.anti ? 1:0);
+			output.writeByte(root.xTurn ? 1:0);
+			output.writeByte(0);
+			output.writeShort(0);
+			output.writeLong(order.size());
+			output.writeDouble(root.expansionConstant);
+			for (int i = 0; i < rows; i++)
+				for (int a = 0; a < columns; a++)
+					output.writeByte(root.board[i][a]);
+
+			int nextChild = 1;
+			for (int i = 0; i < order.size(); i++) {
+				TicTacToeMCTSNode node = order.get(i);
+				TicTacToeMCTSNode[] children = node.children;
+				output.writeInt(node.stats.hits);
+				output.writeInt(node.stats.misses);
+				output.writeInt(node.stats.totalTrials);
+				output.writeInt(children == null ? -1:nextChild);
+				output.writeShort(children == null ? 0:children.length);
+				output.writeShort(node.lastMove == null ? -1:node.lastMove[0] * columns + node.lastMove[1]);
+				if (children != null)
+					nextChild += children.length;
+			}
+		}
+		Files.move(temporary.toPath(), new File(file).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return order.size();
+	}
+
+	public static void main(String... pumpkins) throws IOException {
+		if (pumpkins.length < 1) {
+			System.out.println("Usage: java TicTacToeTreeSnapshot file [trials] [anti] [rows columns winLength]");
+			return;
+		}
+		String file = pumpkins[0];
+		int trials = pumpkins.length > 1 ? Integer.parseInt(pumpkins[1]):TicTacToePlus.monteCarloTrials;
+		boolean anti = pumpkins.length > 2 && Boolean.parseBoolean(pumpkins[2]);
+		int rows = pumpkins.length > 5 ? Integer.parseInt(pumpkins[3]):3;
+		int columns = pumpkins.length > 5 ? Integer.parseInt(pumpkins[4]):3;
+		TicTacToeRules rules = TicTacToeRules.of(pumpkins.length > 5 ? Integer.parseInt(pumpkins[5]):3, anti);
+
+		TicTacToePlus TTT = new TicTacToePlus(0, rows, columns, rules);
+		long start = System.nanoTime();
+		for (int i = 0; i < trials; i++)
+			TTT.root.chooseChild();
+		System.out.printf("searched %d trials in %.3fs%n", trials, (System.nanoTime() - start) / 1e9);
+
+		start = System.nanoTime();
+		long nodes = save(TTT.root, file);
+		System.out.printf("saved %d nodes in %.3fs, %d bytes (%.1f bytes/node)%n", nodes, (System.nanoTime() - start) / 1e9,
+			new File(file).length(), (double)new File(file).length() / nodes);
+
+		start = System.nanoTime();
+		TicTacToePlus loaded = new TicTacToePlus(0, rows, columns, rules);
+		loaded.loadTree(file);
+		System.out.printf("loaded in %.3fms, best move %d %d (searched tree %d %d)%n", (System.nanoTime() - start) / 1e6,
+			loaded.getBestMove()[0], loaded.getBestMove()[1], TTT.getBestMove()[0], TTT.getBestMove()[1]);
+
+		// Reading every node shows what loading eagerly would cost
+		start = System.nanoTime();
+		System.out.printf("reading all %d nodes would take %.3fs%n", readAll(loaded.root), (System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * Reads every node below node from the snapshot, returning how many there are
+	 */
+	private static long readAll(TicTacToeMCTSNode node) {
+		long nodes = 1;
+		TicTacToeMCTSNode[] children = node.children();
+		if (children != null)
+			for (int i = 0; i < children.length; i++)
+				nodes += readAll(children[i]);
+		return nodes;
+	}
+}
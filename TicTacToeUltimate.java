@@ -0,0 +1,182 @@
+import java.util.Scanner;
+
+/**
+ * Ultimate Tic Tac Toe: a 9x9 board of 9 Tic Tac Toe sub-boards, where
+ * each move sends the opponent to the sub-board matching the cell it was
+ * played in, and whoever wins three sub-boards in a row wins the game.
+ * The game is far too big for the depth first searches, so the ai only
+ * searches with TicTacToeMCTSNode, through TicTacToeUltimateNode, on the
+ * compact position of TicTacToeUltimateBitboard.
+ *
+ *     java TicTacToeBenchmark ultimate [playouts]
+ *
+ * measures its playouts and trials per second.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeUltimate {
+
+	/**
+	 * The sub-boards, the state of the sub-boards, and the sub-board the
+	 * next move has to be played in or -1, see TicTacToeUltimateBitboard
+	 */
+	public final int[] boards = new int[TicTacToeUltimateBitboard.numBoards];
+	public int meta, next = -1;
+	public boolean xTurn = true;
+	/**
+	 * aiTurn is 0 for no ai, 1 for X and -1 for O
+	 */
+	public int aiTurn;
+
+	public TicTacToeUltimateNode root;
+	public int trials = TicTacToePlus.monteCarloTrials;
+	public double expansionConstant = TicTacToePlus.expansionConstant;
+	/**
+	 * The ai's random numbers, see TicTacToePlus.random
+	 */
+	public TicTacToeRandom random = new TicTacToeRandom();
+
+	public TicTacToeUltimate(int aiTurn) {
+		this.aiTurn = aiTurn;
+		root = new TicTacToeUltimateNode(boards, meta, next, xTurn, null, null, expansionConstant);
+	}
+
+	/**
+	 * @param pumpkins ai turn, then optionally the trials per move and
+	 *                 the seed of the ai's random numbers as parameters
+	 */
+	public static void main(String... pumpkins) {
+		// Pass 0 for no ai, 1 for ai as X and -1 for ai as O
+		TicTacToeUltimate UTTT = new TicTacToeUltimate(pumpkins.length > 0 ? Integer.parseInt(pumpkins[0]):0);
+		if (pumpkins.length > 1)
+			UTTT.trials = Integer.parseInt(pumpkins[1]);
+		if (pumpkins.length > 2)
+			UTTT.random = new TicTacToeRandom(Long.parseLong(pumpkins[2]));
+		UTTT.run();
+	}
+
+	/**
+	 * This function runs the game
+	 */
+	public void run() {
+		System.out.println("\nWelcome to Ultimate Tic Tac Toe!");
+
+		printBoard();
+		while (!gameOver()) {
+			playMove();
+			printBoard();
+		}
+		printResult();
+	}
+
+	public boolean gameOver() {
+		return TicTacToeUltimateBitboard.gameResult(meta) != 0 || TicTacToeUltimateBitboard.moves(boards, meta, next) == 0;
+	}
+
+	/**
+	 * Returns true if a move can be played on board[x][y] of the whole board
+	 */
+	public boolean legal(int x, int y) {
+		if (x < 0 || x >= TicTacToeUltimateBitboard.size || y < 0 || y >= TicTacToeUltimateBitboard.size)
+			return false;
+		int board = TicTacToeUltimateBitboard.board(x, y);
+		if (next != -1 ? board != next:(TicTacToeUltimateBitboard.closed(meta) & 1 << board) != 0)
+			return false;
+		return (TicTacToeUltimateBitboard.empty(boards[board]) & 1 << TicTacToeUltimateBitboard.cell(x, y)) != 0;
+	}
+
+	/**
+	 * Plays a move, reusing the subtree of the previous root
+	 *
+	 * @param x X coord on the whole board
+	 * @param y Y coord on the whole board
+	 */
+	public void playMove(int x, int y) {
+		int cell = TicTacToeUltimateBitboard.cell(x, y);
+		meta = TicTacToeUltimateBitboard.play(boards, meta, TicTacToeUltimateBitboard.board(x, y), cell, xTurn);
+		next = TicTacToeUltimateBitboard.next(meta, cell);
+		xTurn = !xTurn;
+
+		TicTacToeMCTSNode[] children = root.children;
+		root = null;
+		for (int i = 0; children != null && i < children.length; i++)
+			if (children[i].lastMove[0] == x && children[i].lastMove[1] == y) {
+				root = (TicTacToeUltimateNode)children[i];
+				root.parent = null;
+			}
+		if (root == null)
+			root = new TicTacToeUltimateNode(boards, meta, next, xTurn, null, null, expansionConstant);
+	}
+
+	/**
+	 * This function allows one player to play
+	 * a move given an x and y coordinate
+	 */
+	public void playMove() {
+		if ((aiTurn == 1 && xTurn) || (aiTurn == -1 && !xTurn)) {
+			int[] move = getBestMove();
+			playMove(move[0], move[1]);
+			return;
+		}
+		Scanner keyboard = new Scanner(System.in);
+		int playerX, playerY;
+		do {
+			System.out.print("Enter an X coordinate:\t");
+			playerX = keyboard.nextInt();
+			System.out.print("Enter a Y coordinate:\t");
+			playerY = keyboard.nextInt();
+			if (!legal(playerY, playerX))
+				System.out.println(playerX + " " + playerY + " can't be played!");
+		}	while (!legal(playerY, playerX));
+		playMove(playerY, playerX);
+	}
+
+	/**
+	 * Runs trials trials on the root, and returns the move coords of
+	 * the most tried move
+	 */
+	public int[] getBestMove() {
+		for (int i = 0; i < trials; i++)
+			root.chooseChild(random);
+		return TicTacToePlus.getBestMove(root);
+	}
+
+	/**
+	 * Prints the board, with the sub-boards split by lines and the
+	 * sub-board the next move has to be played in
+	 */
+	public void printBoard() {
+		System.out.println();
+		for (int i = 0; i < TicTacToeUltimateBitboard.size; i++) {
+			if (i > 0 && i % TicTacToeBitboard.size == 0)
+				System.out.println("   ------+-------+------");
+			System.out.print("  ");
+			for (int a = 0; a < TicTacToeUltimateBitboard.size; a++) {
+				if (a > 0 && a % TicTacToeBitboard.size == 0)
+					System.out.print(" |");
+				char c = TicTacToeUltimateBitboard.get(boards, i, a);
+				System.out.print(" " + (c == ' ' ? '.':c));
+			}
+			System.out.println();
+		}
+		if (!gameOver())
+			System.out.println("\n" + (xTurn ? "X":"O") + " plays " + (next == -1 ? "in any open sub-board":"in sub-board " + next));
+		System.out.println();
+	}
+
+	public void printResult() {
+		System.out.println("\nGame Over!!!");
+		switch (TicTacToeUltimateBitboard.gameResult(meta)) {
+			case -1:
+				System.out.println("Circles won!");
+				break;
+			case 0:
+				System.out.println("Tie game!");
+				break;
+			case 1:
+				System.out.println("X's won!");
+				break;
+		}
+		System.out.println("\n");
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * A compact representation of an Ultimate Tic Tac Toe position, where
+ * the 9x9 board is made of 9 sub-boards of regular Tic Tac Toe. Each
+ * sub-board is one int, with the X stones in its low 9 bits and the O
+ * stones in the 9 above them, laid out like a TicTacToeBitboard. The
+ * sub-boards are numbered the same way as the cells of a sub-board.
+ *
+ * The state of the sub-boards is kept in a meta int: the sub-boards won
+ * by X in its low 9 bits, the ones won by O in the next 9, and the ones
+ * filled without a winner in the 9 after that. A sub-board in any of
+ * them is closed. Playing in cell c sends the opponent to sub-board c,
+ * or anywhere if sub-board c is closed, which next keeps as c or -1.
+ * Whoever wins three sub-boards in a row wins the game, and a game where
+ * every sub-board closes without that is a draw.
+ *
+ * Every check is a couple of mask operations and a lookup in the 3x3
+ * win table, and the playouts run on an int[9] without allocating.
+ *
+ * @since October 17th, 2026
+ */
+public class TicTacToeUltimateBitboard {
+
+	public static final int numBoards = TicTacToeBitboard.numCells;
+	/**
+	 * The number of rows and columns of the whole board
+	 */
+	public static final int size = TicTacToeBitboard.size * TicTacToeBitboard.size;
+
+	/**
+	 * Returns the sub-board of the cell board[i][a] of the whole board
+	 */
+	public static int board(int i, int a) {
+		return i / TicTacToeBitboard.size * TicTacToeBitboard.size + a / TicTacToeBitboard.size;
+	}
+
+	/**
+	 * Returns the cell of the sub-board that board[i][a] of the whole board is
+	 */
+	public static int cell(int i, int a) {
+		return i % TicTacToeBitboard.size * TicTacToeBitboard.size + a % TicTacToeBitboard.size;
+	}
+
+	/**
+	 * Returns the row and column on the whole board of a cell of a sub-board
+	 */
+	public static int[] coords(int board, int cell) {
+		return new int[] {board / TicTacToeBitboard.size * TicTacToeBitboard.size + cell / TicTacToeBitboard.size,
+			board % TicTacToeBitboard.size * TicTacToeBitboard.size + cell % TicTacToeBitboard.size};
+	}
+
+	/**
+	 * Returns the mask of the empty cells of a sub-board
+	 */
+	public static int empty(int subBoard) {
+		return TicTacToeBitboard.fullBoard & ~(subBoard | subBoard >>> TicTacToeBitboard.numCells);
+	}
+
+	/**
+	 * Returns the mask of the closed sub-boards: won by either player or full
+	 */
+	public static int closed(int meta) {
+		return (meta | meta >>> numBoards | meta >>> 2 * numBoards) & TicTacToeBitboard.fullBoard;
+	}
+
+	/**
+	 * Returns the character of board[i][a] of the whole board
+	 */
+	public static char get(int[] boards, int i, int a) {
+		int subBoard = boards[board(i, a)], bit = 1 << cell(i, a);
+		return (subBoard & bit) != 0 ? 'X':(subBoard >>> TicTacToeBitboard.numCells & bit) != 0 ? 'O':' ';
+	}
+
+	/**
+	 * Plays a move in place, returning the new meta
+	 *
+	 * @param  boards The sub-boards, which the move is played on
+	 * @param  meta   The state of the sub-boards before the move
+	 * @param  board  The sub-board of the move
+	 * @param  cell   The cell of the move in its sub-board
+	 * @param  xTurn  Whether or not it is the X's turn currently
+	 * @return        The state of the sub-boards after the move
+	 */
+	public static int play(int[] boards, int meta, int board, int cell, boolean xTurn) {
+		int shift = xTurn ? 0:TicTacToeBitboard.numCells;
+		int subBoard = boards[board] |= 1 << (cell + shift);
+		// Only the sub-board played in can have changed
+		if (TicTacToeBitboard.hasWin(subBoard >>> shift & TicTacToeBitboard.fullBoard))
+			return meta | 1 << (board + (xTurn ? 0:numBoards));
+		if (empty(subBoard) == 0)
+			return meta | 1 << (board + 2 * numBoards);
+		return meta;
+	}
+
+	/**
+	 * Returns the sub-board the next move has to be played in after a
+	 * move in cell, or -1 if it can be played in any open sub-board
+	 */
+	public static int next(int meta, int cell) {
+		return (closed(meta) & 1 << cell) != 0 ? -1:cell;
+	}
+
+	/**
+	 * Returns 1 if X won three sub-boards in a row, -1 if O did, 0 otherwise
+	 */
+	public static int gameResult(int meta) {
+		if (TicTacToeBitboard.hasWin(meta & TicTacToeBitboard.fullBoard))
+			return 1;
+		if (TicTacToeBitboard.hasWin(meta >>> numBoards & TicTacToeBitboard.fullBoard))
+			return -1;
+		return 0;
+	}
+
+	/**
+	 * Returns the number of legal moves, which is 0 once every sub-board
+	 * is closed. It doesn't check whether the game was won.
+	 *
+	 * @param  boards The sub-boards
+	 * @param  meta   The state of the sub-boards
+	 * @param  next   The sub-board to play in, or -1 for any open one
+	 * @return        The number of empty cells that can be played
+	 */
+	public static int moves(int[] boards, int meta, int next) {
+		if (next != -1)
+			return Integer.bitCount(empty(boards[next]));
+		int moves = 0;
+		for (int open = ~closed(meta) & TicTacToeBitboard.fullBoard; open != 0; open &= open - 1)
+			moves += Integer.bitCount(empty(boards[Integer.numberOfTrailingZeros(open)]));
+		return moves;
+	}
+
+	/**
+	 * Returns a random legal move, as board * numBoards + cell, picking
+	 * every legal move with the same chance
+	 */
+	public static int getRandomMove(int[] boards, int meta, int next, TicTacToeRandom random) {
+		if (next != -1) {
+			int empty = empty(boards[next]);
+			return next * numBoards + TicTacToeBitboard.nthCell(empty, random.nextInt(Integer.bitCount(empty)));
+		}
+		int n = random.nextInt(moves(boards, meta, next));
+		for (int open = ~closed(meta) & TicTacToeBitboard.fullBoard; ; open &= open - 1) {
+			int board = Integer.numberOfTrailingZeros(open), empty = empty(boards[board]), count = Integer.bitCount(empty);
+			if (n < count)
+				return board * numBoards + TicTacToeBitboard.nthCell(empty, n);
+			n -= count;
+		}
+	}
+
+	/**
+	 * Plays random moves from the position until the game ends, on the
+	 * passed sub-boards, which are left at the end of the playout
+	 *
+	 * @param  boards The sub-boards, which the moves are played on
+	 * @param  meta   The state of the sub-boards
+	 * @param  next   The sub-board to play in, or -1 for any open one
+	 * @param  xTurn  Whether or not it is the X's turn currently
+	 * @param  random The random numbers to pick moves with
+	 * @return        The result of the game at the end of the playout
+	 */
+	public static int playout(int[] boards, int meta, int next, boolean xTurn, TicTacToeRandom random) {
+		int result = gameResult(meta);
+		while (result == 0 && closed(meta) != TicTacToeBitboard.fullBoard) {
+			int move = getRandomMove(boards, meta, next, random), cell = move % numBoards;
+			int played = play(boards, meta, move / numBoards, cell, xTurn);
+			// The game can only have been won if a sub-board was
+			if (played != meta)
+				result = gameResult(played);
+			meta = played;
+			next = next(meta, cell);
+			xTurn = !xTurn;
+		}
+		return result;
+	}
+}
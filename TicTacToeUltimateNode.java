@@ -0,0 +1,62 @@
+/**
+ * A Monte Carlo node of Ultimate Tic Tac Toe, keeping its position as
+ * TicTacToeUltimateBitboard sub-boards instead of a board. Its children
+ * and playouts come from the sub-boards, and the rest of the search is
+ * TicTacToeMCTSNode's, parallel searches included.
+ *
+ * @since October 17th, 2026
+ */
+class TicTacToeUltimateNode extends TicTacToeMCTSNode {
+
+	private static final ThreadLocal<int[]> scratchBoards = ThreadLocal.withInitial(() -> new int[TicTacToeUltimateBitboard.numBoards]);
+
+	public final int[] boards;
+	public final int meta, next;
+
+	/**
+	 * @param boards The sub-boards, which are copied
+	 * @param meta   The state of the sub-boards
+	 * @param next   The sub-board to play in, or -1 for any open one
+	 */
+	TicTacToeUltimateNode(int[] boards, int meta, int next, boolean xTurn, TicTacToeMCTSNode parent, int[] lastMove, double expansionConstant) {
+		// Every sub-board is regular 3 in a row Tic Tac Toe
+		super(xTurn, parent, lastMove, expansionConstant, TicTacToeRules.standard);
+		this.boards = boards.clone();
+		this.meta = meta;
+		this.next = next;
+		result = TicTacToeUltimateBitboard.gameResult(meta);
+		emptyCells = TicTacToeUltimateBitboard.moves(boards, meta, next);
+	}
+
+	protected TicTacToeMCTSNode[] newChildren(TicTacToeRandom random) {
+		TicTacToeMCTSNode[] children = new TicTacToeMCTSNode[emptyCells];
+		int numChildren = 0, open = next != -1 ? 1 << next:~TicTacToeUltimateBitboard.closed(meta) & TicTacToeBitboard.fullBoard;
+		int[] childBoards = boards.clone();
+		for (; open != 0; open &= open - 1) {
+			int board = Integer.numberOfTrailingZeros(open);
+			for (int empty = TicTacToeUltimateBitboard.empty(boards[board]); empty != 0; empty &= empty - 1) {
+				int cell = Integer.numberOfTrailingZeros(empty);
+				int childMeta = TicTacToeUltimateBitboard.play(childBoards, meta, board, cell, xTurn);
+				children[numChildren++] = new TicTacToeUltimateNode(childBoards, childMeta, TicTacToeUltimateBitboard.next(childMeta, cell),
+					!xTurn, this, TicTacToeUltimateBitboard.coords(board, cell), expansionConstant);
+				childBoards[board] = boards[board];
+			}
+		}
+
+		// Shuffle the children so that ties between them are broken randomly
+		for (int i = numChildren - 1; i > 0; i--) {
+			int swap = random.nextInt(i + 1);
+			TicTacToeMCTSNode child = children[i];
+			children[i] = children[swap];
+			children[swap] = child;
+		}
+		return children;
+	}
+
+	protected int playout(TicTacToeRandom random) {
+		// The playout runs on the thread's scratch sub-boards, so nothing is allocated
+		int[] scratch = scratchBoards.get();
+		System.arraycopy(boards, 0, scratch, 0, boards.length);
+		return TicTacToeUltimateBitboard.playout(scratch, meta, next, xTurn, random);
+	}
+}